@@ -1,12 +1,20 @@
 package com.una.ale;
 
+import com.una.ale.controllers.MainController;
+import com.una.ale.util.IoExecutor;
+
 import javafx.application.Application;
+import javafx.application.Platform;
 import javafx.fxml.FXMLLoader;
 import javafx.scene.Parent;
 import javafx.scene.Scene;
+import javafx.scene.control.Label;
+import javafx.scene.layout.StackPane;
 import javafx.stage.Stage;
 
 import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * JavaFX App
@@ -14,13 +22,44 @@ import java.io.IOException;
 public class App extends Application {
 
     private static Scene scene;
+    private MainController mainController;
 
     @Override
-    public void start(Stage stage) throws IOException {
-        scene = new Scene(loadFXML("/com/una/ale/view/main"), 640, 480);
+    public void start(Stage stage) {
+        // Mostrar la ventana de inmediato; el FXML (y con él la conexión) se carga en segundo plano
+        Label placeholder = new Label("Cargando...");
+        scene = new Scene(new StackPane(placeholder), 640, 480);
         stage.setScene(scene);
         stage.setTitle("Elasticsearch JavaFX Client");
         stage.show();
+
+        FXMLLoader fxmlLoader = new FXMLLoader(App.class.getResource("/com/una/ale/view/main.fxml"));
+        CompletableFuture.supplyAsync(() -> {
+            try {
+                return fxmlLoader.<Parent>load();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }, IoExecutor.get()).whenComplete((root, error) -> Platform.runLater(() -> {
+            if (error != null) {
+                Throwable cause = error.getCause() != null ? error.getCause() : error;
+                System.err.println("❌ Error cargando la vista principal: " + cause.getMessage());
+                placeholder.setText("❌ Error cargando la vista principal");
+                return;
+            }
+            mainController = fxmlLoader.getController();
+            scene.setRoot(root);
+        }));
+    }
+
+    @Override
+    public void stop() {
+        // Liberar conexión, PIT y el executor de E/S al cerrar la aplicación
+        if (mainController != null) {
+            mainController.cleanup();
+        } else {
+            IoExecutor.shutdown();
+        }
     }
 
     static void setRoot(String fxml) throws IOException {
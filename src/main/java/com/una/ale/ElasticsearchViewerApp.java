@@ -1,5 +1,7 @@
 package com.una.ale;
 
+import com.una.ale.util.IoExecutor;
+
 import javafx.application.Application;
 import javafx.fxml.FXMLLoader;
 import javafx.scene.Parent;
@@ -48,6 +50,12 @@ public class ElasticsearchViewerApp extends Application {
         }
     }
 
+    @Override
+    public void stop() {
+        // Ejecutada sola, la aplicación es dueña del executor de E/S
+        IoExecutor.shutdown();
+    }
+
     public static void main(String[] args) {
         launch(args);
     }
@@ -1,13 +1,19 @@
 package com.una.ale.controllers;
 
+import java.io.IOException;
+import java.io.InterruptedIOException;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.CompletableFuture;
 
+import com.una.ale.models.DocumentRow;
 import com.una.ale.services.ElasticsearchService;
+import com.una.ale.services.PagedSearch;
+import com.una.ale.util.IoExecutor;
+import com.una.ale.util.LatestTask;
+import com.una.ale.util.PagedList;
+import com.una.ale.util.UiUpdateScheduler;
 
-import javafx.application.Platform;
-import javafx.beans.property.SimpleStringProperty;
 import javafx.collections.FXCollections;
 import javafx.collections.ObservableList;
 import javafx.fxml.FXML;
@@ -38,25 +44,25 @@ public class ElasticsearchViewController {
     @FXML
     private Label lblElasticsearchVersion;
     @FXML
-    private TableView<Map<String, Object>> tblDocuments;
+    private TableView<DocumentRow> tblDocuments;
     @FXML
-    private TableColumn<Map<String, Object>, String> colDocumentId;
+    private TableColumn<DocumentRow, String> colDocumentId;
     @FXML
-    private TableColumn<Map<String, Object>, String> colId;
+    private TableColumn<DocumentRow, String> colId;
     @FXML
-    private TableColumn<Map<String, Object>, String> colFecha;
+    private TableColumn<DocumentRow, String> colFecha;
     @FXML
-    private TableColumn<Map<String, Object>, String> colCliente;
+    private TableColumn<DocumentRow, String> colCliente;
     @FXML
-    private TableColumn<Map<String, Object>, String> colProducto;
+    private TableColumn<DocumentRow, String> colProducto;
     @FXML
-    private TableColumn<Map<String, Object>, String> colCantidad;
+    private TableColumn<DocumentRow, String> colCantidad;
     @FXML
-    private TableColumn<Map<String, Object>, String> colPrecio;
+    private TableColumn<DocumentRow, String> colPrecio;
     @FXML
-    private TableColumn<Map<String, Object>, String> colTotal;
+    private TableColumn<DocumentRow, String> colTotal;
     @FXML
-    private TableColumn<Map<String, Object>, String> colProvincia;
+    private TableColumn<DocumentRow, String> colProvincia;
     @FXML
     private Label lblStatus;
     @FXML
@@ -64,9 +70,22 @@ public class ElasticsearchViewController {
 
     // Servicios
     private final ElasticsearchService elasticsearchService;
+    private final UiUpdateScheduler ui = new UiUpdateScheduler(); // Cambios de interfaz desde hilos de fondo
+    
+    // Clave de la actualización del estado (solo importa el último mensaje)
+    private static final String STATUS_KEY = "estado";
     
     // Datos
-    private ObservableList<Map<String, Object>> documentsData;
+    private ObservableList<DocumentRow> documentsData;
+    private PagedSearch<?, Map<String, Object>> documentPages; // Recorrido del índice cargado (PIT abierto)
+    private PagedList<DocumentRow> pagedDocuments;             // Documentos cargados bajo demanda
+    
+    // Documentos por página al desplazarse por la tabla
+    private static final int PAGE_SIZE = 100;
+
+    // Operaciones en segundo plano: lanzar una nueva cancela la anterior y descarta su resultado
+    private final LatestTask indexInfoLoad = new LatestTask("información del índice");
+    private final LatestTask documentLoad = new LatestTask("carga de documentos");
     
     // Estado
     private boolean isConnected = false;
@@ -93,44 +112,27 @@ public class ElasticsearchViewController {
      * Configura las columnas de la tabla
      */
     private void setupTableColumns() {
-        // Configurar cell value factories para cada columna
-        colDocumentId.setCellValueFactory(cellData -> 
-            new SimpleStringProperty(getFieldValue(cellData.getValue(), "_id")));
-        
-        colId.setCellValueFactory(cellData -> 
-            new SimpleStringProperty(getFieldValue(cellData.getValue(), "id")));
-        
-        colFecha.setCellValueFactory(cellData -> 
-            new SimpleStringProperty(getFieldValue(cellData.getValue(), "fecha")));
-        
-        colCliente.setCellValueFactory(cellData -> 
-            new SimpleStringProperty(getFieldValue(cellData.getValue(), "cliente")));
-        
-        colProducto.setCellValueFactory(cellData -> 
-            new SimpleStringProperty(getFieldValue(cellData.getValue(), "producto")));
-        
-        colCantidad.setCellValueFactory(cellData -> 
-            new SimpleStringProperty(getFieldValue(cellData.getValue(), "cantidad")));
-        
-        colPrecio.setCellValueFactory(cellData -> 
-            new SimpleStringProperty(getFieldValue(cellData.getValue(), "precio_unitario")));
-        
-        colTotal.setCellValueFactory(cellData -> 
-            new SimpleStringProperty(getFieldValue(cellData.getValue(), "total")));
-        
-        colProvincia.setCellValueFactory(cellData -> 
-            new SimpleStringProperty(getFieldValue(cellData.getValue(), "provincia")));
+        // Cada fila trae el texto ya convertido y reutiliza sus propiedades
+        bindColumn(colDocumentId, "_id");
+        bindColumn(colId, "id");
+        bindColumn(colFecha, "fecha");
+        bindColumn(colCliente, "cliente");
+        bindColumn(colProducto, "producto");
+        bindColumn(colCantidad, "cantidad");
+        bindColumn(colPrecio, "precio_unitario");
+        bindColumn(colTotal, "total");
+        bindColumn(colProvincia, "provincia");
 
         // Configurar datos de la tabla
         tblDocuments.setItems(documentsData);
     }
 
     /**
-     * Obtiene el valor de un campo del documento
+     * Asocia una columna al texto precalculado de un campo del documento
      */
-    private String getFieldValue(Map<String, Object> document, String fieldName) {
-        Object value = document.get(fieldName);
-        return value != null ? value.toString() : "-";
+    private void bindColumn(TableColumn<DocumentRow, String> column, String fieldName) {
+        int index = DocumentRow.column(fieldName);
+        column.setCellValueFactory(cellData -> cellData.getValue().property(index));
     }
 
     /**
@@ -164,7 +166,7 @@ public class ElasticsearchViewController {
                 boolean connected = elasticsearchService.testConnection();
                 this.isConnected = connected;
                 
-                Platform.runLater(() -> {
+                ui.post(() -> {
                     if (connected) {
                         lblConnectionStatus.setText("✅ Conectado");
                         lblConnectionStatus.setStyle("-fx-text-fill: #2ecc71;");
@@ -179,13 +181,13 @@ public class ElasticsearchViewController {
                 });
                 
             } catch (Exception e) {
-                Platform.runLater(() -> {
+                ui.post(() -> {
                     lblConnectionStatus.setText("❌ Error");
                     lblConnectionStatus.setStyle("-fx-text-fill: #e74c3c;");
                     updateStatus("❌ Error: " + e.getMessage());
                 });
             }
-        });
+        }, IoExecutor.get());
     }
 
     /**
@@ -195,7 +197,7 @@ public class ElasticsearchViewController {
         CompletableFuture.runAsync(() -> {
             try {
                 String clusterInfo = elasticsearchService.getClusterInfo();
-                Platform.runLater(() -> {
+                ui.post(() -> {
                     if (clusterInfo != null) {
                         // Parsear información del cluster
                         String[] parts = clusterInfo.split(", ");
@@ -206,27 +208,29 @@ public class ElasticsearchViewController {
                     }
                 });
             } catch (Exception e) {
-                Platform.runLater(() -> {
+                ui.post(() -> {
                     lblClusterName.setText("Error obteniendo info");
                     lblElasticsearchVersion.setText("-");
                 });
             }
-        });
+        }, IoExecutor.get());
     }
 
     /**
      * Actualiza la información de un índice específico
      */
     private void updateIndexInfo(String indexName) {
-        CompletableFuture.runAsync(() -> {
+        indexInfoLoad.run(token -> {
             try {
                 long count = elasticsearchService.countDocuments(indexName);
-                Platform.runLater(() -> {
+                ui.post(() -> {
+                    if (!token.isCurrent()) return;
                     lblIndexName.setText("Índice: " + indexName);
                     lblDocumentCount.setText("Documentos: " + count);
                 });
             } catch (Exception e) {
-                Platform.runLater(() -> {
+                ui.post(() -> {
+                    if (!token.isCurrent()) return;
                     lblDocumentCount.setText("Error contando documentos");
                 });
             }
@@ -261,7 +265,7 @@ public class ElasticsearchViewController {
                     .filter(index -> !index.startsWith("."))
                     .toList();
                 
-                Platform.runLater(() -> {
+                ui.post(() -> {
                     cmbIndices.getItems().clear();
                     cmbIndices.getItems().addAll(userIndices);
                     
@@ -277,11 +281,9 @@ public class ElasticsearchViewController {
                 });
                 
             } catch (Exception e) {
-                Platform.runLater(() -> {
-                    updateStatus("❌ Error cargando índices: " + e.getMessage());
-                });
+                updateStatus("❌ Error cargando índices: " + e.getMessage());
             }
-        });
+        }, IoExecutor.get());
     }
 
     /**
@@ -298,29 +300,50 @@ public class ElasticsearchViewController {
         updateStatus("🔄 Cargando datos de " + selectedIndex + "...");
         btnLoadData.setDisable(true);
         
-        CompletableFuture.runAsync(() -> {
+        documentLoad.run(token -> {
             try {
-                // Cargar hasta 100 documentos
-                List<Map<String, Object>> documents = elasticsearchService.searchDocuments(selectedIndex, 100);
+                // Abrir el recorrido por páginas; el resto se carga al desplazarse
+                var pages = elasticsearchService.openDocumentPages(selectedIndex, PAGE_SIZE);
+                List<Map<String, Object>> firstPage;
+                try {
+                    firstPage = pages.fetch(0);
+                } catch (IOException | RuntimeException e) {
+                    closeQuietly(pages);
+                    throw e;
+                }
                 
-                Platform.runLater(() -> {
-                    documentsData.clear();
-                    documentsData.addAll(documents);
+                ui.post(() -> {
+                    if (!token.isCurrent()) {
+                        closeQuietly(pages); // Reemplazada por una carga más reciente
+                        return;
+                    }
+                    closeDocumentPages();
+                    documentPages = pages;
+                    // Las filas se convierten a texto al llegar cada página, en el hilo de carga
+                    pagedDocuments = new PagedList<>(pages.total(), PAGE_SIZE, DocumentRow.LOADING, 
+                        pageIndex -> toRows(pages.fetch(pageIndex)));
+                    pagedDocuments.putPage(0, toRows(firstPage));
+                    pagedDocuments.setOnError(e -> updateStatus("❌ Error cargando página: " + e.getMessage()));
+                    pagedDocuments.setFxExecutor(ui::post);
+                    tblDocuments.setItems(pagedDocuments);
                     
                     btnLoadData.setDisable(false);
                     btnClearData.setDisable(false);
                     
-                    updateStatus("✅ " + documents.size() + " documentos cargados");
-                    lblLoadedCount.setText(documents.size() + " documentos cargados");
+                    updateStatus("✅ " + pages.total() + " documentos disponibles");
+                    lblLoadedCount.setText(pages.total() + " documentos (páginas de " + PAGE_SIZE + ")");
                     
                     // Scroll to top
-                    if (!documents.isEmpty()) {
+                    if (!firstPage.isEmpty()) {
                         tblDocuments.scrollTo(0);
                     }
                 });
                 
+            } catch (InterruptedIOException e) {
+                // Cancelada por una carga más reciente
             } catch (Exception e) {
-                Platform.runLater(() -> {
+                ui.post(() -> {
+                    if (!token.isCurrent()) return;
                     btnLoadData.setDisable(false);
                     updateStatus("❌ Error cargando datos: " + e.getMessage());
                 });
@@ -333,17 +356,43 @@ public class ElasticsearchViewController {
      */
     @FXML
     private void onClearData() {
+        documentLoad.cancel(); // Descartar la carga en curso, si la hay
+        btnLoadData.setDisable(false);
+        closeDocumentPages();
+        tblDocuments.setItems(documentsData);
         documentsData.clear();
         btnClearData.setDisable(true);
         lblLoadedCount.setText("0 documentos cargados");
         updateStatus("🗑️ Datos limpiados");
     }
 
+    private List<DocumentRow> toRows(List<Map<String, Object>> documents) {
+        return documents.stream().map(DocumentRow::of).toList();
+    }
+
+    /**
+     * Deja de cargar páginas del índice anterior y libera su PIT en segundo plano
+     */
+    private void closeDocumentPages() {
+        if (pagedDocuments != null) pagedDocuments.close();
+        if (documentPages != null) closeQuietly(documentPages);
+        pagedDocuments = null;
+        documentPages = null;
+    }
+
+    /**
+     * Libera el PIT de un recorrido fuera del hilo de JavaFX
+     */
+    private void closeQuietly(PagedSearch<?, ?> pages) {
+        CompletableFuture.runAsync(pages::close, IoExecutor.get());
+    }
+
     /**
      * Actualiza el mensaje de estado
      */
     private void updateStatus(String message) {
-        Platform.runLater(() -> {
+        // Última escritura gana: una ráfaga de mensajes se aplica como uno solo
+        ui.post(STATUS_KEY, () -> {
             lblStatus.setText(message);
         });
     }
@@ -352,6 +401,11 @@ public class ElasticsearchViewController {
      * Limpia recursos al cerrar
      */
     public void cleanup() {
+        indexInfoLoad.cancel();
+        documentLoad.cancel();
+        if (documentPages != null) {
+            documentPages.close(); // Liberar el PIT antes de cerrar la conexión
+        }
         if (elasticsearchService != null) {
             elasticsearchService.close();
         }
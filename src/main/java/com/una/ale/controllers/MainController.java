@@ -1,33 +1,66 @@
 package com.una.ale.controllers;
 
 import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
 import java.util.concurrent.CompletableFuture;
-import java.util.stream.Collectors;
+import java.util.regex.Pattern;
 
+import com.una.ale.models.AggregationBucket;
+import com.una.ale.models.AggregationSpec;
+import com.una.ale.models.ChangeWatermark;
+import com.una.ale.models.DashboardSnapshot;
+import com.una.ale.models.IndexGeneration;
+import com.una.ale.models.IndexOverview;
+import com.una.ale.models.SearchCount;
+import com.una.ale.models.Venta;
+import com.una.ale.models.VentaChanges;
+import com.una.ale.models.VentaColumns;
+import com.una.ale.models.VentaColumns.Dimension;
+import com.una.ale.models.VentaRow;
+import com.una.ale.models.ViewSnapshot;
 import com.una.ale.services.ElasticsearchService;
+import com.una.ale.services.PagedSearch;
+import com.una.ale.services.ViewSnapshotStore;
+import com.una.ale.util.CanvasBarChart;
 import com.una.ale.util.ExcelReader;
+import com.una.ale.util.LocalAggregator;
+import com.una.ale.util.LocalAggregator.EncodedColumn;
+import com.una.ale.util.Log;
+import com.una.ale.util.InvertedIndex;
+import com.una.ale.util.IoExecutor;
+import com.una.ale.util.LatestTask;
+import com.una.ale.util.PagedList;
+import com.una.ale.util.StartupReport;
+import com.una.ale.util.UiUpdateScheduler;
 
-import javafx.application.Platform;
-import javafx.beans.property.SimpleStringProperty;
+import javafx.animation.Animation;
+import javafx.animation.KeyFrame;
+import javafx.animation.Timeline;
 import javafx.collections.FXCollections;
-import javafx.collections.ObservableList;
 import javafx.fxml.FXML;
-import javafx.scene.chart.BarChart;
-import javafx.scene.chart.CategoryAxis;
-import javafx.scene.chart.NumberAxis;
-import javafx.scene.chart.XYChart;
 import javafx.scene.control.Label;
 import javafx.scene.control.TableColumn;
 import javafx.scene.control.TableView;
 import javafx.scene.control.ComboBox;
 import javafx.scene.control.Button;
+import javafx.scene.control.CheckBox;
 import javafx.scene.control.TextField;
 import javafx.scene.input.KeyCode;
 import javafx.scene.input.KeyEvent;
+import javafx.util.Duration;
 
 /**
  * Controlador principal de la aplicación JavaFX
@@ -39,26 +72,59 @@ public class MainController {
      * Enum para los diferentes tipos de gráficos disponibles
      */
     public enum ChartType {
-        PRODUCTO("Producto", "producto", "Ventas por Producto"),
-        PROVINCIA("Provincia", "provincia", "Ventas por Provincia"), 
-        CLIENTE("Cliente", "cliente", "Ventas por Cliente"),
-        MES("Mes", "fecha", "Ventas por Mes"),
-        CANTIDAD_PRODUCTO("Cantidad por Producto", "producto", "Cantidad Vendida por Producto");
+        PRODUCTO("Producto", "producto", "total", "Ventas por Producto"),
+        PROVINCIA("Provincia", "provincia", "total", "Ventas por Provincia"), 
+        CLIENTE("Cliente", "cliente", "total", "Ventas por Cliente"),
+        MES("Mes", "fecha", "total", "Ventas por Mes"),
+        CANTIDAD_PRODUCTO("Cantidad por Producto", "producto", "cantidad", "Cantidad Vendida por Producto"),
+        CLIENTES_PROVINCIA("Clientes Distintos por Provincia", "provincia", "cliente", "Clientes Distintos por Provincia (aprox.)"),
+        PERCENTILES_TOTAL("Percentiles del Total", null, "total", "Percentiles del Total por Venta (aprox.)");
         
         private final String displayName;
         private final String fieldName;
+        private final String metricField;
         private final String chartTitle;
         
-        ChartType(String displayName, String fieldName, String chartTitle) {
+        ChartType(String displayName, String fieldName, String metricField, String chartTitle) {
             this.displayName = displayName;
             this.fieldName = fieldName;
+            this.metricField = metricField;
             this.chartTitle = chartTitle;
         }
         
         public String getDisplayName() { return displayName; }
         public String getFieldName() { return fieldName; }
+        public String getMetricField() { return metricField; }
         public String getChartTitle() { return chartTitle; }
         
+        /**
+         * Indica si el gráfico muestra una serie temporal (orden cronológico, sin top-N)
+         */
+        public boolean isTimeSeries() { return this == MES; }
+        
+        /**
+         * Indica si el gráfico muestra percentiles (un grupo por percentil, en orden)
+         */
+        public boolean isPercentiles() { return this == PERCENTILES_TOTAL; }
+        
+        /**
+         * Agregación del cluster equivalente a este gráfico
+         * @param size Top-N de grupos por la métrica (ignorado en series temporales)
+         * @param timeZone Zona horaria para cortar los meses
+         */
+        public AggregationSpec toAggregationSpec(int size, String timeZone) {
+            if (isTimeSeries()) {
+                return AggregationSpec.monthlySum(name(), fieldName, metricField, timeZone);
+            }
+            if (isPercentiles()) {
+                return AggregationSpec.percentiles(name(), metricField, CHART_PERCENTS);
+            }
+            if (this == CLIENTES_PROVINCIA) {
+                return AggregationSpec.termsCardinality(name(), fieldName, metricField, size, CARDINALITY_PRECISION);
+            }
+            return AggregationSpec.termsSum(name(), fieldName, metricField, size);
+        }
+        
         @Override
         public String toString() { return displayName; }
     }
@@ -66,32 +132,49 @@ public class MainController {
     // Constantes de configuración
     private static final String EXCEL_FILE_PATH = "src/main/resources/com/una/ale/resources/excel/ventas.xlsx";
     private static final String DEFAULT_INDEX_NAME = "excel_ventas";
+    private static final int SEARCH_PAGE_SIZE = 100; // Filas por página que se cargan en la tabla al desplazarse
+    private static final boolean EXACT_SEARCH_TOTALS = true; // Contar más allá del límite de 10.000
+    private static final int CHART_MAX_GROUPS = 1000; // Grupos que se muestran en el gráfico (con desplazamiento)
+    // Las fechas del Excel no traen zona, Elasticsearch las guarda como UTC
+    private static final String CHART_TIME_ZONE = "UTC";
+    // Percentiles del total por venta y precisión del conteo de distintos (memoria constante en el cluster)
+    private static final List<Double> CHART_PERCENTS = List.of(50.0, 90.0, 95.0, 99.0);
+    private static final int CARDINALITY_PRECISION = 3000;
+    // Mantener el índice resumen al indexar y leer de él los gráficos sin búsqueda activa
+    private static final boolean USE_SUMMARY_INDEX = true;
+    
+    // Auto-actualización: cada cuánto se revisa la generación del índice y cuántas ventas
+    // nuevas se integran como máximo (si hay más se recarga todo)
+    private static final Duration AUTO_REFRESH_INTERVAL = Duration.seconds(5);
+    private static final int MAX_REFRESH_DOCS = 1000;
+    
+    // Filtro local: índices de hasta este tamaño se traen completos a memoria para filtrar sin
+    // consultar el cluster; campos indexados localmente
+    private static final int LOCAL_FILTER_MAX_ROWS = 20_000;
+    private static final int LOCAL_FILTER_BATCH_SIZE = 1000;
+    private static final Pattern HAS_DIGIT = Pattern.compile("\\d");
     
     // Componentes FXML
     @FXML
     private Label txtStatus;
     @FXML
-    private TableView<Map<String, Object>> tblData;
-    @FXML
-    private TableColumn<Map<String, Object>, String> colId;
+    private TableView<VentaRow> tblData;
     @FXML
-    private TableColumn<Map<String, Object>, String> colFecha;
+    private TableColumn<VentaRow, String> colId;
     @FXML
-    private TableColumn<Map<String, Object>, String> colCliente;
+    private TableColumn<VentaRow, String> colFecha;
     @FXML
-    private TableColumn<Map<String, Object>, String> colProducto;
+    private TableColumn<VentaRow, String> colCliente;
     @FXML
-    private TableColumn<Map<String, Object>, String> colCantidad;
+    private TableColumn<VentaRow, String> colProducto;
     @FXML
-    private TableColumn<Map<String, Object>, String> colTotal;
+    private TableColumn<VentaRow, String> colCantidad;
     @FXML
-    private TableColumn<Map<String, Object>, String> colProvincia;
+    private TableColumn<VentaRow, String> colTotal;
     @FXML
-    private BarChart<String, Number> barChart;
+    private TableColumn<VentaRow, String> colProvincia;
     @FXML
-    private CategoryAxis xAxis;
-    @FXML
-    private NumberAxis yAxis;
+    private CanvasBarChart barChart;
     @FXML
     private ComboBox<ChartType> cmbChartType;
     @FXML
@@ -108,19 +191,62 @@ public class MainController {
     private Button btnClearSearch;
     @FXML
     private Label lblSearchResults;
+    @FXML
+    private CheckBox chkAutoRefresh;
 
     // Servicios
     private final ElasticsearchService elasticsearchService;
     private final ExcelReader excelReader;
+    private final UiUpdateScheduler ui = new UiUpdateScheduler(); // Cambios de interfaz desde hilos de fondo
+    private final ViewSnapshotStore viewStore = new ViewSnapshotStore(); // Última vista guardada en disco
+    
+    // Claves de las actualizaciones de interfaz donde solo importa el último valor
+    private static final String STATUS_KEY = "estado";
+    private static final String SEARCH_LABEL_KEY = "resultados";
+    
+    // Fases del reporte de arranque
+    private static final String STARTUP_CONNECTION = "conexión";
+    private static final String STARTUP_FIRST_PAGE = "primera página";
+    private static final String STARTUP_CHART = "gráfico";
+    private static final String STARTUP_SAVED_VIEW = "vista guardada";
     
     // Datos
-    private ObservableList<Map<String, Object>> tableData;
-    private ObservableList<Map<String, Object>> originalData; // Para restaurar después de búsquedas
+    // Filas en memoria guardadas por columnas (textos repetidos codificados con diccionario)
+    private VentaColumns tableData;
+    private VentaColumns originalData; // Para restaurar después de búsquedas
+    private DashboardSnapshot dashboardSnapshot; // Agregaciones de todos los gráficos (hilo de JavaFX)
+    private LocalAggregator<Venta> tableAggregator; // Agregador de las filas de la tabla (null = reconstruir)
+    private int tableAggregatorVersion;             // Versión de tableData sobre la que se armó
+    private PagedSearch<Venta, Venta> browsePages;   // Recorrido del índice completo (PIT abierto)
+    private PagedList<VentaRow> browseRows;          // Filas del índice completo, cargadas bajo demanda
+    private PagedSearch<Venta, Venta> searchPages;   // Recorrido de los resultados de la búsqueda activa
+    private PagedList<VentaRow> searchRows;
+    private String browseGeneration;            // Generación del índice cuando se cargó la tabla
+    private DashboardSnapshot browseDashboard;  // Agregaciones sin filtro de esa generación
+    private String savedGeneration;             // Generación de la vista guardada en disco
+    
+    // Auto-actualización: estado del índice ya reflejado en la tabla sin filtro
+    private Timeline autoRefresh;
+    private boolean isRefreshing = false;
+    private IndexGeneration refreshGeneration;  // Última generación revisada (null = aún no)
+    private ChangeWatermark refreshWatermark;   // Marca de los documentos ya mostrados (null = fijarla)
+    private long refreshedTotal;                // Documentos del índice reflejados en la tabla
+    private InvertedIndex<Venta> localIndex;    // Todas las ventas del índice, para filtrar localmente (null = no)
+    private String localIndexGeneration;        // Generación del índice reflejada en localIndex
+    
+    // Operaciones en segundo plano: lanzar una nueva cancela la anterior y descarta su resultado
+    private final LatestTask tableLoad = new LatestTask("carga de la tabla");
+    private final LatestTask searchTask = new LatestTask("búsqueda");
+    private final LatestTask dashboardLoad = new LatestTask("carga del dashboard");
+    private final LatestTask refreshTask = new LatestTask("auto-actualización");
+    private final LatestTask localIndexLoad = new LatestTask("índice local");
     
     // Estado de la aplicación
     private boolean isElasticsearchConnected = false;
     private int lastIndexedCount = 0;
     private boolean isSearchActive = false;
+    private String activeSearchField; // Campo de la búsqueda activa (null = todos los campos)
+    private String activeSearchText;  // Texto de la búsqueda activa (null = sin filtro)
 
     /**
      * Constructor - inicializa los servicios
@@ -128,8 +254,8 @@ public class MainController {
     public MainController() {
         this.elasticsearchService = new ElasticsearchService();
         this.excelReader = new ExcelReader();
-        this.tableData = FXCollections.observableArrayList();
-        this.originalData = FXCollections.observableArrayList();
+        this.tableData = new VentaColumns();
+        this.originalData = new VentaColumns();
     }
 
     /**
@@ -144,14 +270,44 @@ public class MainController {
         setupSearchComponents();
         updateStatus("🔄 Inicializando...", false);
         
+        StartupReport startup = new StartupReport("Arranque", 
+            STARTUP_CONNECTION, STARTUP_FIRST_PAGE, STARTUP_CHART);
+        startup.mark("interfaz");
+        
+        // La vista guardada se lee del disco mientras se conecta y se muestra en cuanto está
+        CompletableFuture<Optional<ViewSnapshot>> savedView = CompletableFuture.supplyAsync(
+            () -> viewStore.load(DEFAULT_INDEX_NAME), IoExecutor.get());
+        savedView.thenAccept(view -> view.ifPresent(saved -> ui.post(() -> showSavedView(saved, startup))));
+        
         // Ejecutar inicialización en background para no bloquear UI
         CompletableFuture.runAsync(() -> {
             initializeElasticsearch();
-            processExcelData();
-        }).exceptionally(throwable -> {
-            Platform.runLater(() -> 
-                updateStatus("❌ Error de inicialización: " + throwable.getMessage(), true)
-            );
+            startup.mark(STARTUP_CONNECTION);
+            if (!isElasticsearchConnected) {
+                logInfo(startup.summary());
+                return;
+            }
+            String generation = currentGeneration();
+            ViewSnapshot saved = savedView.join().orElse(null);
+            boolean savedIsCurrent = saved != null && generation != null && saved.isCurrent(generation);
+            
+            // Primera página y agregaciones en paralelo: cada una se muestra al llegar.
+            // Si el índice no cambió desde que se guardó la vista, sus agregaciones siguen valiendo
+            ui.post(() -> {
+                loadDataToTable(startup, generation);
+                if (savedIsCurrent) {
+                    logInfo("📦 La vista guardada está al día, se omiten las agregaciones");
+                    browseGeneration = generation;
+                    browseDashboard = saved.dashboard();
+                    dashboardSnapshot = saved.dashboard();
+                    showSelectedChart();
+                    startup.mark(STARTUP_CHART);
+                } else {
+                    loadDashboardSnapshot(startup);
+                }
+            });
+        }, IoExecutor.get()).exceptionally(throwable -> {
+            updateStatus("❌ Error de inicialización: " + throwable.getMessage(), true);
             return null;
         });
     }
@@ -162,6 +318,9 @@ public class MainController {
     private void setupChartTypeComboBox() {
         cmbChartType.setItems(FXCollections.observableArrayList(ChartType.values()));
         cmbChartType.setValue(ChartType.PRODUCTO); // Valor por defecto
+        
+        // Cambiar de gráfico usa el snapshot ya cargado, sin consultar el cluster
+        cmbChartType.valueProperty().addListener((obs, oldVal, newVal) -> showSelectedChart());
     }
     
     /**
@@ -191,23 +350,17 @@ public class MainController {
     private void setupTableColumns() {
         if (tblData != null) {
             // Configurar cell value factories
-            colId.setCellValueFactory(cellData -> 
-                new SimpleStringProperty(getFieldValue(cellData.getValue(), "id")));
-            colFecha.setCellValueFactory(cellData -> 
-                new SimpleStringProperty(getFieldValue(cellData.getValue(), "fecha")));
-            colCliente.setCellValueFactory(cellData -> 
-                new SimpleStringProperty(getFieldValue(cellData.getValue(), "cliente")));
-            colProducto.setCellValueFactory(cellData -> 
-                new SimpleStringProperty(getFieldValue(cellData.getValue(), "producto")));
-            colCantidad.setCellValueFactory(cellData -> 
-                new SimpleStringProperty(getFieldValue(cellData.getValue(), "cantidad")));
-            colTotal.setCellValueFactory(cellData -> 
-                new SimpleStringProperty(getFieldValue(cellData.getValue(), "total")));
-            colProvincia.setCellValueFactory(cellData -> 
-                new SimpleStringProperty(getFieldValue(cellData.getValue(), "provincia")));
+            // Cada fila trae el texto ya formateado y reutiliza sus propiedades
+            colId.setCellValueFactory(cellData -> cellData.getValue().property(VentaRow.ID));
+            colFecha.setCellValueFactory(cellData -> cellData.getValue().property(VentaRow.FECHA));
+            colCliente.setCellValueFactory(cellData -> cellData.getValue().property(VentaRow.CLIENTE));
+            colProducto.setCellValueFactory(cellData -> cellData.getValue().property(VentaRow.PRODUCTO));
+            colCantidad.setCellValueFactory(cellData -> cellData.getValue().property(VentaRow.CANTIDAD));
+            colTotal.setCellValueFactory(cellData -> cellData.getValue().property(VentaRow.TOTAL));
+            colProvincia.setCellValueFactory(cellData -> cellData.getValue().property(VentaRow.PROVINCIA));
 
             // Asociar datos a la tabla
-            tblData.setItems(tableData);
+            tblData.setItems(FXCollections.observableArrayList());
         }
     }
 
@@ -217,32 +370,10 @@ public class MainController {
     private void setupChart() {
         if (barChart != null) {
             barChart.setTitle("Ventas por Producto");
-            xAxis.setLabel("Productos");
-            yAxis.setLabel("Total de Ventas");
-            barChart.setLegendVisible(false);
+            barChart.setAxisLabels("Productos", "Total de Ventas");
         }
     }
 
-    /**
-     * Obtiene el valor de un campo del documento
-     */
-    private String getFieldValue(Map<String, Object> document, String fieldName) {
-        Object value = document.get(fieldName);
-        if (value == null) return "-";
-        
-        // Formatear valores específicos
-        if (fieldName.equals("total") || fieldName.equals("precio_unitario")) {
-            try {
-                double numValue = Double.parseDouble(value.toString());
-                return String.format("₡%.0f", numValue);
-            } catch (NumberFormatException e) {
-                return value.toString();
-            }
-        }
-        
-        return value.toString();
-    }
-
     /**
      * Inicializa y prueba la conexión a Elasticsearch
      */
@@ -256,22 +387,16 @@ public class MainController {
             if (connected) {
                 String clusterInfo = elasticsearchService.getClusterInfo();
                 logInfo("✅ " + clusterInfo);
-                Platform.runLater(() -> 
-                    updateStatus("✅ Conectado a Elasticsearch", false)
-                );
+                updateStatus("✅ Conectado a Elasticsearch", false);
             } else {
                 logError("❌ No se pudo conectar a Elasticsearch");
-                Platform.runLater(() -> 
-                    updateStatus("❌ Sin conexión a Elasticsearch", true)
-                );
+                updateStatus("❌ Sin conexión a Elasticsearch", true);
             }
             
         } catch (Exception e) {
             this.isElasticsearchConnected = false;
             logError("❌ Error conectando a Elasticsearch: " + e.getMessage());
-            Platform.runLater(() -> 
-                updateStatus("❌ Error: " + e.getMessage(), true)
-            );
+            updateStatus("❌ Error: " + e.getMessage(), true);
         }
     }
 
@@ -291,7 +416,7 @@ public class MainController {
                 logInfo("📊 Ya hay " + existingCount + " documentos en el índice '" + DEFAULT_INDEX_NAME + "'");
                 logInfo("⏭️ Saltando indexación - datos ya existen");
                 
-                Platform.runLater(() -> {
+                ui.post(() -> {
                     updateStatus("✅ " + existingCount + " docs ya indexados", false);
                     loadDataToTable();
                 });
@@ -351,7 +476,8 @@ public class MainController {
     private void indexDataToElasticsearch(Map<Integer, List<String>> excelData) {
         try {
             List<String> headers = excelData.get(0);
-            int indexedCount = elasticsearchService.indexExcelData(DEFAULT_INDEX_NAME, excelData, headers);
+            int indexedCount = elasticsearchService.indexExcelData(
+                DEFAULT_INDEX_NAME, excelData, headers, USE_SUMMARY_INDEX);
             
             this.lastIndexedCount = indexedCount;
             
@@ -362,23 +488,19 @@ public class MainController {
                 );
                 logInfo(successMessage);
                 
-                Platform.runLater(() -> {
+                ui.post(() -> {
                     updateStatus("✅ " + indexedCount + " docs indexados", false);
                     // Cargar datos en tabla y gráfico
                     loadDataToTable();
                 });
             } else {
                 logWarning("⚠️ No se pudieron indexar los datos");
-                Platform.runLater(() -> 
-                    updateStatus("⚠️ Indexación falló", true)
-                );
+                updateStatus("⚠️ Indexación falló", true);
             }
             
         } catch (Exception e) {
             logError("❌ Error indexando datos: " + e.getMessage());
-            Platform.runLater(() -> 
-                updateStatus("❌ Error de indexación", true)
-            );
+            updateStatus("❌ Error de indexación", true);
         }
     }
 
@@ -386,7 +508,17 @@ public class MainController {
      * Carga los datos de Elasticsearch a la tabla y actualiza el gráfico
      */
     private void loadDataToTable() {
-        CompletableFuture.runAsync(() -> {
+        loadDataToTable(null, null);
+    }
+
+    /**
+     * Carga la primera página de la tabla
+     * @param startup Reporte de arranque; si no es null el gráfico se pide aparte (en paralelo)
+     * y un índice vacío o inexistente pasa a indexar el archivo Excel
+     * @param knownGeneration Generación del índice ya consultada (null = consultarla)
+     */
+    private void loadDataToTable(StartupReport startup, String knownGeneration) {
+        tableLoad.run(token -> {
             try {
                 if (!isElasticsearchConnected) {
                     logWarning("⚠️ No hay conexión a Elasticsearch");
@@ -395,25 +527,57 @@ public class MainController {
 
                 logInfo("📊 Cargando datos de " + DEFAULT_INDEX_NAME + " para mostrar en tabla...");
                 
-                // Obtener datos de Elasticsearch
-                List<Map<String, Object>> documents = elasticsearchService.searchDocuments(DEFAULT_INDEX_NAME, 50);
+                // La generación se lee antes que los datos: la vista guardada nunca queda marcada
+                // con una generación más nueva que sus filas
+                String generation = knownGeneration != null ? knownGeneration : currentGeneration();
                 
-                Platform.runLater(() -> {
-                    if (documents != null && !documents.isEmpty()) {
-                        tableData.clear();
-                        tableData.addAll(documents);
-                        
+                // Abrir el recorrido por páginas del índice; el resto se carga al desplazarse
+                PagedSearch<Venta, Venta> pages = elasticsearchService.openVentaPages(
+                    DEFAULT_INDEX_NAME, null, null, SEARCH_PAGE_SIZE);
+                List<Venta> documents = fetchFirstPage(pages);
+                
+                ui.post(() -> {
+                    if (!token.isCurrent()) {
+                        closeQuietly(pages); // Reemplazada por una carga más reciente
+                        return;
+                    }
+                    closeBrowsePages();
+                    browsePages = pages;
+                    browseRows = createPagedList(pages, documents);
+                    if (generation == null || !generation.equals(browseGeneration)) {
+                        browseDashboard = null; // Las agregaciones anteriores son de otra generación
+                    }
+                    browseGeneration = generation;
+                    resetRefreshState(pages.total());
+                    loadLocalIndex(pages.total(), generation);
+                    
+                    if (startup != null && documents.isEmpty()) {
+                        // Índice vacío al arrancar: indexar el Excel (luego se vuelve a cargar)
+                        startup.mark(STARTUP_FIRST_PAGE);
+                        CompletableFuture.runAsync(this::processExcelData, IoExecutor.get());
+                        return;
+                    }
+                    
+                    if (!documents.isEmpty()) {
                         // Actualizar datos originales si no estamos en búsqueda
                         if (!isSearchActive) {
-                            originalData.clear();
-                            originalData.addAll(documents);
+                            tblData.setItems(browseRows);
+                            tableData.setAll(documents);
                         }
+                        originalData.setAll(documents);
+                        saveViewSnapshot();
                         
-                        logInfo("✅ " + documents.size() + " registros cargados en la tabla");
+                        logInfo("✅ " + pages.total() + " registros disponibles en la tabla (páginas de " 
+                            + SEARCH_PAGE_SIZE + ")");
                         
-                        // Actualizar gráfico
-                        updateChart(documents);
+                        if (startup != null) {
+                            startup.mark(STARTUP_FIRST_PAGE);
+                        } else {
+                            // Actualizar gráfico con agregaciones sobre todo el índice
+                            loadDashboardSnapshot();
+                        }
                     } else {
+                        tblData.setItems(FXCollections.observableArrayList());
                         tableData.clear();
                         logWarning("⚠️ No se encontraron datos para mostrar");
                         // Limpiar gráfico cuando no hay datos
@@ -421,167 +585,373 @@ public class MainController {
                     }
                 });
                 
+            } catch (InterruptedIOException e) {
+                // Cancelada por una carga más reciente
             } catch (Exception e) {
+                if (!token.isCurrent()) return;
+                if (startup != null) {
+                    // Al arrancar el índice puede no existir aún: se sigue con la indexación
+                    logWarning("⚠️ Primera página no disponible (" + e.getMessage() + "), revisando el índice...");
+                    startup.mark(STARTUP_FIRST_PAGE);
+                    processExcelData();
+                    return;
+                }
                 logError("❌ Error cargando datos para tabla: " + e.getMessage());
-                Platform.runLater(() -> 
-                    updateStatus("❌ Error cargando datos", true)
-                );
+                updateStatus("❌ Error cargando datos", true);
             }
         });
     }
 
     /**
-     * Actualiza el gráfico de barras con los datos según el tipo seleccionado
+     * Lee la primera página de un recorrido recién abierto; si falla (o se cancela),
+     * libera su PIT
+     */
+    private List<Venta> fetchFirstPage(PagedSearch<Venta, Venta> pages) throws IOException {
+        try {
+            return pages.fetch(0);
+        } catch (IOException | RuntimeException e) {
+            closeQuietly(pages);
+            throw e;
+        }
+    }
+
+    /**
+     * Generación actual del índice (null si no existe o no se pudo consultar)
+     */
+    private String currentGeneration() {
+        try {
+            IndexGeneration generation = elasticsearchService.indexGeneration(DEFAULT_INDEX_NAME);
+            return generation != null ? generation.token() : null;
+        } catch (InterruptedIOException e) {
+            return null; // Carga cancelada: el hilo sigue interrumpido y la siguiente consulta se corta
+        } catch (Exception e) {
+            logWarning("⚠️ No se pudo consultar la generación del índice: " + e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Muestra la vista guardada en disco mientras el cluster responde
+     * (solo las partes que aún no llegaron del cluster)
+     */
+    private void showSavedView(ViewSnapshot saved, StartupReport startup) {
+        savedGeneration = saved.generation();
+        if (browseRows == null && !saved.firstPage().isEmpty()) {
+            tblData.setItems(FXCollections.observableArrayList(toRows(saved.firstPage())));
+            tableData.setAll(saved.firstPage());
+        }
+        if (dashboardSnapshot == null) {
+            dashboardSnapshot = saved.dashboard();
+            showSelectedChart();
+        }
+        startup.mark(STARTUP_SAVED_VIEW);
+        String savedAt = DateTimeFormatter.ofPattern("dd/MM HH:mm")
+            .format(Instant.ofEpochMilli(saved.savedAt()).atZone(ZoneId.systemDefault()));
+        logInfo("📦 Vista guardada del " + savedAt + ": " + saved.firstPage().size() + " filas de " + saved.total());
+        if (!isElasticsearchConnected) {
+            updateStatus("📦 Vista guardada (" + savedAt + ")", false);
+        }
+    }
+
+    /**
+     * Guarda en disco la vista sin filtro (primera página y agregaciones) cuando ambas son
+     * de la misma generación del índice y esa generación aún no se guardó
+     */
+    private void saveViewSnapshot() {
+        if (browseGeneration == null || browseDashboard == null || browsePages == null 
+                || originalData.isEmpty() || browseGeneration.equals(savedGeneration)) {
+            return;
+        }
+        ViewSnapshot view = new ViewSnapshot(browseGeneration, System.currentTimeMillis(), 
+            browsePages.total(), originalData, browseDashboard);
+        savedGeneration = browseGeneration;
+        CompletableFuture.runAsync(() -> {
+            try {
+                viewStore.save(DEFAULT_INDEX_NAME, view);
+                logInfo("💾 Vista guardada para el próximo arranque (generación " + view.generation() + ")");
+            } catch (IOException e) {
+                logWarning("⚠️ No se pudo guardar la vista: " + e.getMessage());
+            }
+        }, IoExecutor.get());
+    }
+
+    /**
+     * Crea la lista de la tabla que carga las páginas del recorrido bajo demanda
+     * @param firstPage Primera página, ya obtenida junto con el total
+     */
+    private PagedList<VentaRow> createPagedList(PagedSearch<Venta, Venta> pages, List<Venta> firstPage) {
+        // Las filas se formatean al llegar cada página, en el hilo de carga
+        PagedList<VentaRow> rows = new PagedList<>(pages.total(), pages.pageSize(), VentaRow.LOADING, 
+            pageIndex -> toRows(pages.fetch(pageIndex)));
+        rows.putPage(0, toRows(firstPage));
+        rows.setOnError(e -> logError("❌ Error cargando página de la tabla: " + e.getMessage()));
+        rows.setFxExecutor(ui::post);
+        return rows;
+    }
+
+    private List<VentaRow> toRows(List<Venta> ventas) {
+        return ventas.stream().map(VentaRow::of).toList();
+    }
+
+    private void closeBrowsePages() {
+        if (browseRows != null) browseRows.close();
+        if (browsePages != null) closeQuietly(browsePages);
+        browseRows = null;
+        browsePages = null;
+    }
+
+    private void closeSearchPages() {
+        if (searchRows != null) searchRows.close();
+        if (searchPages != null) closeQuietly(searchPages);
+        searchRows = null;
+        searchPages = null;
+    }
+
+    /**
+     * Libera el PIT de un recorrido fuera del hilo de JavaFX
+     */
+    private void closeQuietly(PagedSearch<?, ?> pages) {
+        CompletableFuture.runAsync(pages::close, IoExecutor.get());
+    }
+
+    /**
+     * Obtiene el tipo de gráfico seleccionado (Producto por defecto)
      */
-    private void updateChart(List<Map<String, Object>> documents) {
+    private ChartType selectedChartType() {
         ChartType selectedType = cmbChartType.getValue();
-        if (selectedType == null) {
-            selectedType = ChartType.PRODUCTO;
+        return selectedType != null ? selectedType : ChartType.PRODUCTO;
+    }
+
+    /**
+     * Pide al cluster todas las vistas del dashboard en una sola consulta (filtradas por la
+     * búsqueda activa) y muestra la seleccionada. Si el cluster no puede agregar, usa los datos cargados.
+     */
+    private void loadDashboardSnapshot() {
+        loadDashboardSnapshot(null);
+    }
+
+    /**
+     * @param startup Reporte de arranque donde marcar cuándo se mostró el gráfico (puede ser null)
+     */
+    private void loadDashboardSnapshot(StartupReport startup) {
+        if (!isElasticsearchConnected) {
+            dashboardSnapshot = null;
+            showSelectedChart();
+            return;
         }
-        updateChart(documents, selectedType);
+        
+        String searchField = activeSearchField;
+        String searchText = activeSearchText;
+        List<AggregationSpec> specs = dashboardSpecs();
+        
+        dashboardLoad.run(token -> {
+            try {
+                DashboardSnapshot snapshot = elasticsearchService.aggregateDashboard(
+                    DEFAULT_INDEX_NAME, specs, searchField, searchText, USE_SUMMARY_INDEX);
+                ui.post(() -> {
+                    if (!token.isCurrent()) return;
+                    dashboardSnapshot = snapshot;
+                    showSelectedChart();
+                    if (startup != null) startup.mark(STARTUP_CHART);
+                    if (searchText == null) {
+                        browseDashboard = snapshot;
+                        saveViewSnapshot();
+                    }
+                });
+                
+            } catch (InterruptedIOException e) {
+                // Cancelada por una carga más reciente
+            } catch (Exception e) {
+                if (!token.isCurrent()) return;
+                logWarning("⚠️ Agregación en el cluster no disponible, usando datos cargados: " + e.getMessage());
+                ui.post(() -> {
+                    if (!token.isCurrent()) return;
+                    dashboardSnapshot = null;
+                    showSelectedChart();
+                    if (startup != null) startup.mark(STARTUP_CHART);
+                });
+            }
+        });
+    }
+
+    /**
+     * Agregaciones del cluster de todos los gráficos del dashboard
+     */
+    private List<AggregationSpec> dashboardSpecs() {
+        return Arrays.stream(ChartType.values())
+            .map(type -> type.toAggregationSpec(CHART_MAX_GROUPS, CHART_TIME_ZONE))
+            .toList();
+    }
+
+    /**
+     * Muestra el gráfico seleccionado desde el snapshot (sin consultar el cluster),
+     * o agrupando los datos cargados si el snapshot no incluye ese gráfico
+     */
+    private void showSelectedChart() {
+        ChartType chartType = selectedChartType();
+        if (dashboardSnapshot != null && dashboardSnapshot.contains(chartType.name())) {
+            renderChart(chartType, dashboardSnapshot.get(chartType.name()));
+        } else {
+            updateChart(tableAggregator(), chartType);
+        }
+    }
+
+    /**
+     * Actualiza el gráfico de barras con los datos según el tipo seleccionado
+     */
+    private void updateChart(List<Venta> documents) {
+        updateChart(documents, selectedChartType());
     }
     
     /**
-     * Actualiza el gráfico de barras con los datos según el tipo especificado
+     * Actualiza el gráfico agrupando localmente los datos cargados según el tipo especificado
      */
-    private void updateChart(List<Map<String, Object>> documents, ChartType chartType) {
+    private void updateChart(List<Venta> documents, ChartType chartType) {
+        updateChart(new LocalAggregator<>(documents != null ? documents : List.of()), chartType);
+    }
+    
+    /**
+     * Actualiza el gráfico agrupando con el agregador local (dimensiones ya codificadas se reutilizan)
+     */
+    private void updateChart(LocalAggregator<Venta> aggregator, ChartType chartType) {
         try {
             if (barChart == null) return;
             
-            // Configurar el título del gráfico
-            barChart.setTitle(chartType.getChartTitle());
-            
             // Limpiar gráfico si no hay datos
-            if (documents == null || documents.isEmpty()) {
-                barChart.getData().clear();
-                logInfo("📈 Gráfico limpiado - sin datos para mostrar");
+            if (aggregator.size() == 0) {
+                renderChart(chartType, new ArrayList<>());
                 return;
             }
             
-            Map<String, Double> groupedData;
-            
-            switch (chartType) {
-                case PRODUCTO:
-                    groupedData = documents.stream()
-                        .filter(doc -> doc.get("producto") != null && doc.get("total") != null)
-                        .collect(Collectors.groupingBy(
-                            doc -> doc.get("producto").toString(),
-                            Collectors.summingDouble(doc -> parseDouble(doc.get("total")))
-                        ));
-                    break;
-                    
-                case PROVINCIA:
-                    groupedData = documents.stream()
-                        .filter(doc -> doc.get("provincia") != null && doc.get("total") != null)
-                        .collect(Collectors.groupingBy(
-                            doc -> doc.get("provincia").toString(),
-                            Collectors.summingDouble(doc -> parseDouble(doc.get("total")))
-                        ));
-                    break;
-                    
-                case CLIENTE:
-                    groupedData = documents.stream()
-                        .filter(doc -> doc.get("cliente") != null && doc.get("total") != null)
-                        .collect(Collectors.groupingBy(
-                            doc -> doc.get("cliente").toString(),
-                            Collectors.summingDouble(doc -> parseDouble(doc.get("total")))
-                        ));
-                    break;
-                    
-                case MES:
-                    groupedData = documents.stream()
-                        .filter(doc -> doc.get("fecha") != null && doc.get("total") != null)
-                        .collect(Collectors.groupingBy(
-                            doc -> extractMonth(doc.get("fecha").toString()),
-                            Collectors.summingDouble(doc -> parseDouble(doc.get("total")))
-                        ));
-                    break;
-                    
-                case CANTIDAD_PRODUCTO:
-                    groupedData = documents.stream()
-                        .filter(doc -> doc.get("producto") != null && doc.get("cantidad") != null)
-                        .collect(Collectors.groupingBy(
-                            doc -> doc.get("producto").toString(),
-                            Collectors.summingDouble(doc -> parseDouble(doc.get("cantidad")))
-                        ));
-                    break;
-                    
-                default:
-                    groupedData = new HashMap<>();
-            }
-
-            // Crear serie de datos para el gráfico
-            XYChart.Series<String, Number> series = new XYChart.Series<>();
-            series.setName(chartType.getDisplayName());
-
-            // Agregar datos al gráfico (limitar a los top 10 para mejor visualización)
-            groupedData.entrySet().stream()
-                .sorted(Map.Entry.<String, Double>comparingByValue().reversed())
-                .limit(10)
-                .forEach(entry -> series.getData().add(new XYChart.Data<>(entry.getKey(), entry.getValue())));
+            List<AggregationBucket> buckets = localBuckets(aggregator, chartType);
 
-            // Limpiar y agregar nueva serie
-            barChart.getData().clear();
-            barChart.getData().add(series);
+            if (chartType.isTimeSeries()) {
+                // Orden cronológico (yyyy-MM)
+                buckets = buckets.stream().sorted(Comparator.comparing(AggregationBucket::key)).toList();
+            } else if (!chartType.isPercentiles()) {
+                buckets = LocalAggregator.top(buckets, CHART_MAX_GROUPS);
+            }
             
-            logInfo("📈 Gráfico actualizado (" + chartType.getDisplayName() + ") con " + groupedData.size() + " elementos");
+            renderChart(chartType, buckets);
             
         } catch (Exception e) {
             logError("❌ Error actualizando gráfico: " + e.getMessage());
         }
     }
-    
+
     /**
-     * Método auxiliar para parsear valores numéricos
+     * Grupos de un gráfico calculados con el agregador local (sin ordenar ni recortar)
      */
-    private double parseDouble(Object value) {
-        try {
-            return Double.parseDouble(value.toString());
-        } catch (NumberFormatException e) {
-            return 0.0;
+    private List<AggregationBucket> localBuckets(LocalAggregator<Venta> aggregator, ChartType chartType) {
+        switch (chartType) {
+            case PRODUCTO:
+                return aggregator.sum(aggregator.column("producto", Venta::producto), totals(aggregator));
+            
+            case PROVINCIA:
+                return aggregator.sum(aggregator.column("provincia", Venta::provincia), totals(aggregator));
+            
+            case CLIENTE:
+                return aggregator.sum(aggregator.column("cliente", Venta::cliente), totals(aggregator));
+            
+            case MES:
+                return aggregator.sum(
+                    aggregator.column("mes", venta -> venta.fecha() != null ? extractMonth(venta.fecha()) : null), 
+                    totals(aggregator));
+            
+            case CANTIDAD_PRODUCTO:
+                return aggregator.sum(aggregator.column("producto", Venta::producto), 
+                    aggregator.values("cantidad", Venta::cantidad));
+            
+            case CLIENTES_PROVINCIA:
+                // Los datos cargados son pocos: conteo exacto de clientes distintos
+                return aggregator.countDistinct(
+                    aggregator.column("provincia", Venta::provincia), 
+                    aggregator.column("cliente", Venta::cliente));
+            
+            case PERCENTILES_TOTAL:
+                return localPercentiles(aggregator);
+            
+            default:
+                return new ArrayList<>();
         }
     }
-    
+
     /**
-     * Método auxiliar para extraer el mes de una fecha
+     * Agregador local sobre las filas de la tabla; se reconstruye solo cuando la tabla cambia,
+     * así cambiar de gráfico reutiliza las dimensiones ya codificadas
      */
-    private String extractMonth(String dateStr) {
-        try {
-            // Asume formato MM/dd/yyyy o similar
-            String[] parts = dateStr.split("/");
-            if (parts.length >= 2) {
-                int month = Integer.parseInt(parts[0]);
-                String[] months = {"Enero", "Febrero", "Marzo", "Abril", "Mayo", "Junio",
-                                   "Julio", "Agosto", "Septiembre", "Octubre", "Noviembre", "Diciembre"};
-                return months[month - 1];
-            }
-        } catch (Exception e) {
-            // Si no se puede parsear, devolver el string original
+    private LocalAggregator<Venta> tableAggregator() {
+        if (tableAggregator == null || tableAggregatorVersion != tableData.version()) {
+            // Las columnas ya codificadas de la tabla se usan tal cual: no se arma ninguna venta
+            LocalAggregator<Venta> aggregator = new LocalAggregator<>(tableData);
+            List<String> dictionary = tableData.dictionary();
+            aggregator.putColumn("cliente", new EncodedColumn(tableData.codes(Dimension.CLIENTE), dictionary));
+            aggregator.putColumn("producto", new EncodedColumn(tableData.codes(Dimension.PRODUCTO), dictionary));
+            aggregator.putColumn("provincia", new EncodedColumn(tableData.codes(Dimension.PROVINCIA), dictionary));
+            aggregator.putColumn("mes", new EncodedColumn(tableData.codes(Dimension.MES), dictionary));
+            aggregator.putValues("total", tableData.totals());
+            aggregator.putValues("cantidad", tableData.cantidades());
+            tableAggregator = aggregator;
+            tableAggregatorVersion = tableData.version();
         }
-        return dateStr;
+        return tableAggregator;
     }
-    
+
+    private double[] totals(LocalAggregator<Venta> aggregator) {
+        return aggregator.values("total", Venta::total);
+    }
+
     /**
-     * Maneja el evento del botón para actualizar el gráfico
+     * Percentiles del total de los datos cargados (rango más cercano), como los del cluster
      */
-    @FXML
-    private void onUpdateChart() {
-        ChartType selectedType = cmbChartType.getValue();
-        if (selectedType == null) {
-            selectedType = ChartType.PRODUCTO;
+    private List<AggregationBucket> localPercentiles(LocalAggregator<Venta> aggregator) {
+        double[] totals = totals(aggregator).clone(); // El arreglo del agregador es compartido
+        Arrays.sort(totals);
+        List<AggregationBucket> buckets = new ArrayList<>();
+        for (double percent : CHART_PERCENTS) {
+            int rank = (int) Math.ceil(percent / 100.0 * totals.length);
+            double value = totals[Math.max(0, Math.min(totals.length - 1, rank - 1))];
+            String label = percent == Math.rint(percent) ? "p" + (long) percent : "p" + percent;
+            buckets.add(new AggregationBucket(label, 0, value));
         }
+        return buckets;
+    }
+
+    /**
+     * Dibuja en el gráfico de barras los grupos ya calculados
+     */
+    private void renderChart(ChartType chartType, List<AggregationBucket> buckets) {
+        if (barChart == null) return;
         
-        // Obtener datos actuales de la tabla y actualizar gráfico
-        List<Map<String, Object>> currentData = new ArrayList<>(tableData);
+        // Configurar el título del gráfico
+        barChart.setTitle(chartType.getChartTitle());
+        barChart.setData(buckets);
         
-        // Solo actualizar si hay datos para mostrar
-        if (!currentData.isEmpty()) {
-            updateChart(currentData, selectedType);
-            logInfo("🔄 Gráfico actualizado a: " + selectedType.getDisplayName());
-        } else {
-            updateChart(new ArrayList<>(), selectedType);
-            logInfo("🔄 Gráfico limpiado - sin datos actuales");
+        if (buckets.isEmpty()) {
+            logInfo("📈 Gráfico limpiado - sin datos para mostrar");
+            return;
         }
+        
+        logInfo("📈 Gráfico actualizado (" + chartType.getDisplayName() + ") con " + buckets.size() + " elementos");
+    }
+    
+    /**
+     * Método auxiliar para extraer el mes de una fecha (yyyy-MM, igual que el histograma del cluster)
+     */
+    private String extractMonth(LocalDate fecha) {
+        return YearMonth.from(fecha).toString();
+    }
+    
+    /**
+     * Maneja el evento del botón para actualizar el gráfico
+     */
+    @FXML
+    private void onUpdateChart() {
+        // Volver a pedir el snapshot al cluster; cambiar de tipo no requiere este paso.
+        // Se invalida la caché porque el índice pudo cambiar fuera de esta aplicación.
+        elasticsearchService.invalidateIndex(DEFAULT_INDEX_NAME);
+        loadDashboardSnapshot();
+        logInfo("🔄 Actualizando gráficos desde Elasticsearch (" + selectedChartType().getDisplayName() + ")");
     }
 
     /**
@@ -594,10 +964,8 @@ public class MainController {
         
         CompletableFuture.runAsync(() -> {
             processExcelData();
-        }).exceptionally(throwable -> {
-            Platform.runLater(() -> 
-                updateStatus("❌ Error en reindexación", true)
-            );
+        }, IoExecutor.get()).exceptionally(throwable -> {
+            updateStatus("❌ Error en reindexación", true);
             return null;
         });
     }
@@ -612,7 +980,7 @@ public class MainController {
         
         CompletableFuture.runAsync(() -> {
             initializeElasticsearch();
-        });
+        }, IoExecutor.get());
     }
 
     /**
@@ -632,37 +1000,35 @@ public class MainController {
                     return;
                 }
                 
-                // Listar índices
-                var indices = elasticsearchService.listAllIndices();
-                logInfo("📊 Índices encontrados: " + indices.size());
+                // Listar índices con sus estadísticas en una sola consulta
+                var overview = elasticsearchService.getIndicesOverview();
+                logInfo("📊 Índices encontrados: " + overview.size());
+                
+                boolean defaultIndexExists = overview.stream()
+                    .anyMatch(index -> index.name().equals(DEFAULT_INDEX_NAME));
                 
                 // Mostrar contenido del índice principal
-                if (indices.contains(DEFAULT_INDEX_NAME)) {
+                if (defaultIndexExists) {
                     logInfo("📄 Mostrando contenido de '" + DEFAULT_INDEX_NAME + "':");
                     elasticsearchService.printIndexContent(DEFAULT_INDEX_NAME, 10);
                 } else {
                     logInfo("⚠️ Índice '" + DEFAULT_INDEX_NAME + "' no encontrado");
                     
                     // Mostrar otros índices disponibles
-                    for (String index : indices) {
-                        if (!index.startsWith(".")) { // Ignorar índices del sistema
-                            long count = elasticsearchService.countDocuments(index);
-                            logInfo("📋 " + index + ": " + count + " documentos");
+                    for (IndexOverview index : overview) {
+                        if (!index.isSystemIndex()) { // Ignorar índices del sistema
+                            logInfo("📋 " + index.name() + ": " + index.docsCount() + " documentos (" + index.storeSize() + ")");
                         }
                     }
                 }
                 
-                Platform.runLater(() -> 
-                    updateStatus("✅ Ver consola para datos indexados", false)
-                );
+                updateStatus("✅ Ver consola para datos indexados", false);
                 
             } catch (Exception e) {
                 logError("❌ Error visualizando datos: " + e.getMessage());
-                Platform.runLater(() -> 
-                    updateStatus("❌ Error visualizando datos", true)
-                );
+                updateStatus("❌ Error visualizando datos", true);
             }
-        });
+        }, IoExecutor.get());
     }
 
     /**
@@ -672,7 +1038,7 @@ public class MainController {
     private void onOpenDataViewer() {
         logInfo("🖥️ Abriendo visualizador gráfico de datos...");
         
-        Platform.runLater(() -> {
+        ui.post(() -> {
             try {
                 // Abrir nueva ventana con el visualizador
                 com.una.ale.ElasticsearchViewerApp viewerApp = new com.una.ale.ElasticsearchViewerApp();
@@ -689,6 +1055,164 @@ public class MainController {
         });
     }
 
+    /**
+     * Activa o desactiva la auto-actualización de la tabla y el gráfico
+     */
+    @FXML
+    private void onToggleAutoRefresh() {
+        if (chkAutoRefresh.isSelected()) {
+            if (autoRefresh == null) {
+                autoRefresh = new Timeline(new KeyFrame(AUTO_REFRESH_INTERVAL, event -> pollChanges()));
+                autoRefresh.setCycleCount(Animation.INDEFINITE);
+            }
+            autoRefresh.play();
+            logInfo("🔁 Auto-actualización activada (cada " + (int) AUTO_REFRESH_INTERVAL.toSeconds() + " s)");
+        } else {
+            if (autoRefresh != null) autoRefresh.stop();
+            refreshTask.cancel();
+            isRefreshing = false;
+            logInfo("⏸️ Auto-actualización desactivada");
+        }
+    }
+
+    /**
+     * Olvida lo revisado por la auto-actualización (la tabla se volvió a cargar completa)
+     * @param total Documentos del índice en la tabla recién cargada
+     */
+    private void resetRefreshState(long total) {
+        refreshTask.cancel();
+        isRefreshing = false;
+        refreshGeneration = null;
+        refreshWatermark = null;
+        refreshedTotal = total;
+    }
+
+    /**
+     * Revisa si el índice cambió con una consulta liviana a _stats; solo si cambió pide las
+     * ventas nuevas (indexed_at posterior a la marca) y las integra en la tabla y el gráfico.
+     * Si los cambios no son solo altas (borrados, actualizaciones, índice recreado) o son
+     * demasiados, recarga todo. Mientras hay una búsqueda activa no se revisa.
+     */
+    private void pollChanges() {
+        if (isRefreshing || isSearchActive || !isElasticsearchConnected || browseRows == null) return;
+        
+        isRefreshing = true;
+        IndexGeneration known = refreshGeneration;
+        ChangeWatermark watermark = refreshWatermark;
+        long total = refreshedTotal;
+        
+        refreshTask.run(token -> {
+            try {
+                IndexGeneration current = elasticsearchService.indexGeneration(DEFAULT_INDEX_NAME);
+                if (current == null || current.equals(known)) {
+                    ui.post(() -> { if (token.isCurrent()) isRefreshing = false; });
+                    return;
+                }
+                
+                if (watermark == null) {
+                    // Primera revisión desde que se cargó la tabla: fijar la marca de cambios
+                    if (current.docCount() != total) {
+                        reloadAfterChanges(token, "el índice cambió desde la carga");
+                        return;
+                    }
+                    ChangeWatermark initial = elasticsearchService.changeWatermark(DEFAULT_INDEX_NAME);
+                    ui.post(() -> {
+                        if (!token.isCurrent()) return;
+                        refreshGeneration = current;
+                        refreshWatermark = initial;
+                        isRefreshing = false;
+                    });
+                    return;
+                }
+                
+                if (known != null && !current.sameIndex(known)) {
+                    reloadAfterChanges(token, "el índice se volvió a crear");
+                    return;
+                }
+                
+                VentaChanges changes = elasticsearchService.fetchVentasSince(
+                    DEFAULT_INDEX_NAME, watermark, MAX_REFRESH_DOCS);
+                if (!changes.isComplete()) {
+                    reloadAfterChanges(token, changes.totalMatches() + " ventas nuevas");
+                    return;
+                }
+                if (total + changes.ventas().size() != current.docCount()) {
+                    reloadAfterChanges(token, "hubo borrados o actualizaciones");
+                    return;
+                }
+                
+                ui.post(() -> {
+                    if (!token.isCurrent()) return;
+                    applyChanges(changes, current);
+                    isRefreshing = false;
+                });
+                
+            } catch (InterruptedIOException e) {
+                // Desactivada o reemplazada por una carga completa
+            } catch (Exception e) {
+                ui.post(() -> {
+                    if (!token.isCurrent()) return;
+                    isRefreshing = false;
+                    logWarning("⚠️ Error revisando cambios del índice: " + e.getMessage());
+                });
+            }
+        });
+    }
+
+    /**
+     * Los cambios no se pueden integrar: recarga la tabla y el gráfico completos
+     */
+    private void reloadAfterChanges(LatestTask.Token token, String reason) {
+        ui.post(() -> {
+            if (!token.isCurrent()) return;
+            isRefreshing = false;
+            logInfo("🔄 Recargando datos: " + reason);
+            loadDataToTable();
+        });
+    }
+
+    /**
+     * Integra las ventas nuevas: se agregan al inicio de la tabla (la más nueva primero) y
+     * se suman a los gráficos que lo permiten; los demás se recalculan si están a la vista
+     */
+    private void applyChanges(VentaChanges changes, IndexGeneration current) {
+        refreshGeneration = current;
+        refreshWatermark = changes.watermark();
+        if (changes.ventas().isEmpty()) return;
+        
+        List<Venta> newest = new ArrayList<>(changes.ventas());
+        Collections.reverse(newest);
+        browseRows.prepend(toRows(newest));
+        originalData.addAll(0, newest);
+        tableData.addAll(0, newest);
+        refreshedTotal += newest.size();
+        if (localIndex != null) {
+            localIndex.addAll(changes.ventas());
+            localIndexGeneration = current.token();
+        }
+        
+        // La vista guardada necesita el dashboard completo de esta generación
+        browseGeneration = current.token();
+        browseDashboard = null;
+        
+        if (dashboardSnapshot != null) {
+            LocalAggregator<Venta> added = new LocalAggregator<>(changes.ventas());
+            Map<String, List<AggregationBucket>> delta = new HashMap<>();
+            for (ChartType type : ChartType.values()) {
+                delta.put(type.name(), localBuckets(added, type));
+            }
+            dashboardSnapshot = dashboardSnapshot.merge(delta, dashboardSpecs());
+        }
+        if (dashboardSnapshot != null && !dashboardSnapshot.contains(selectedChartType().name())) {
+            loadDashboardSnapshot(); // El gráfico a la vista no se puede actualizar sumando
+        } else {
+            showSelectedChart();
+        }
+        
+        updateStatus("🆕 " + newest.size() + " ventas nuevas", false);
+        logInfo("🆕 " + newest.size() + " ventas nuevas integradas (total " + refreshedTotal + ")");
+    }
+
     /**
      * Actualiza el estado en la interfaz de usuario
      * @param message Mensaje a mostrar
@@ -696,7 +1220,8 @@ public class MainController {
      */
     private void updateStatus(String message, boolean isError) {
         if (txtStatus != null) {
-            Platform.runLater(() -> {
+            // Última escritura gana: una ráfaga de mensajes se aplica como uno solo
+            ui.post(STATUS_KEY, () -> {
                 txtStatus.setText(message);
                 // Opcional: cambiar color basado en isError
                 if (isError) {
@@ -713,26 +1238,41 @@ public class MainController {
      */
     public void cleanup() {
         try {
+            // Terminar las consultas en curso antes de cerrar la conexión
+            tableLoad.cancel();
+            searchTask.cancel();
+            dashboardLoad.cancel();
+            refreshTask.cancel();
+            localIndexLoad.cancel();
+            if (autoRefresh != null) autoRefresh.stop();
+            IoExecutor.shutdown();
+            
+            // Liberar los PIT antes de cerrar la conexión
+            for (PagedSearch<Venta, Venta> pages : Arrays.asList(searchPages, browsePages)) {
+                if (pages != null) pages.close();
+            }
             if (elasticsearchService != null) {
                 elasticsearchService.close();
                 logInfo("🔒 Conexión a Elasticsearch cerrada");
             }
         } catch (Exception e) {
             logError("❌ Error cerrando recursos: " + e.getMessage());
+        } finally {
+            Log.flush(); // Errores omitidos y mensajes pendientes antes de salir
         }
     }
 
     // Métodos utilitarios para logging consistente
     private void logInfo(String message) {
-        System.out.println(message);
+        Log.info(message);
     }
 
     private void logWarning(String message) {
-        System.out.println(message);
+        Log.warn(message);
     }
 
     private void logError(String message) {
-        System.err.println(message);
+        Log.error(message);
     }
 
     // Getters para testing o acceso externo
@@ -763,16 +1303,24 @@ public class MainController {
         txtSearch.clear();
         cmbSearchField.setValue("Todos los campos");
         
+        activeSearchField = null;
+        activeSearchText = null;
+        
+        searchTask.cancel(); // Descartar la búsqueda en curso, si la hay
+        btnSearch.setDisable(false);
+        closeSearchPages();
+        
         // Restaurar datos originales
         if (originalData != null && !originalData.isEmpty()) {
-            tableData.clear();
-            tableData.addAll(originalData);
-            updateChart(new ArrayList<>(originalData));
+            tblData.setItems(browseRows != null ? browseRows : FXCollections.observableArrayList());
+            tableData.setAll(originalData);
+            loadDashboardSnapshot();
             lblSearchResults.setText("");
             isSearchActive = false;
             logInfo("🗑️ Búsqueda limpiada - mostrando todos los datos");
         } else {
             // Si no hay datos originales, limpiar todo
+            tblData.setItems(FXCollections.observableArrayList());
             tableData.clear();
             updateChart(new ArrayList<>());
             lblSearchResults.setText("");
@@ -793,54 +1341,85 @@ public class MainController {
     
     /**
      * Realiza una búsqueda en Elasticsearch
+     * Primero obtiene el total con una consulta size=0 y luego carga una página para la tabla
      */
     private void performSearch(String searchText, String selectedField) {
-        CompletableFuture.runAsync(() -> {
+        String fieldName = "Todos los campos".equals(selectedField) ? null : selectedField;
+        
+        if (canFilterLocally(fieldName, searchText)) {
+            filterLocally(searchText, fieldName, selectedField);
+            return;
+        }
+        
+        dashboardLoad.cancel(); // Las agregaciones de la vista anterior ya no se muestran
+        searchTask.run(token -> {
             try {
-                Platform.runLater(() -> {
+                ui.post(() -> {
+                    if (!token.isCurrent()) return;
                     lblSearchResults.setText("🔍 Buscando...");
                     btnSearch.setDisable(true);
                 });
                 
-                List<Map<String, Object>> searchResults;
+                // Conteo barato: se muestra de inmediato
+                SearchCount count = elasticsearchService.countSearchResults(
+                    DEFAULT_INDEX_NAME, fieldName, searchText, EXACT_SEARCH_TOTALS);
                 
-                if ("Todos los campos".equals(selectedField)) {
-                    // Búsqueda en todos los campos
-                    searchResults = elasticsearchService.searchAllFields(DEFAULT_INDEX_NAME, searchText);
-                } else {
-                    // Búsqueda en campo específico
-                    searchResults = elasticsearchService.searchByField(DEFAULT_INDEX_NAME, selectedField, searchText);
-                }
+                ui.post(SEARCH_LABEL_KEY, () -> {
+                    if (token.isCurrent()) {
+                        lblSearchResults.setText(String.format("📊 %s resultados encontrados", count.display()));
+                    }
+                });
+                
+                // Resultados por páginas para la tabla (solo si hay coincidencias)
+                PagedSearch<Venta, Venta> pages = count.value() > 0
+                    ? elasticsearchService.openVentaPages(DEFAULT_INDEX_NAME, fieldName, searchText, SEARCH_PAGE_SIZE)
+                    : null;
+                List<Venta> searchResults = pages != null ? fetchFirstPage(pages) : new ArrayList<>();
                 
-                Platform.runLater(() -> {
+                ui.post(() -> {
+                    if (!token.isCurrent()) {
+                        if (pages != null) closeQuietly(pages); // Reemplazada por una búsqueda más reciente
+                        return;
+                    }
                     // Guardar datos originales si es la primera búsqueda
                     if (!isSearchActive && !tableData.isEmpty()) {
-                        originalData.clear();
-                        originalData.addAll(tableData);
+                        originalData.setAll(tableData);
                     }
                     
-                    // Actualizar tabla con resultados
-                    tableData.clear();
-                    if (searchResults != null) {
-                        tableData.addAll(searchResults);
+                    // Actualizar tabla con resultados (el resto de páginas se carga al desplazarse)
+                    closeSearchPages();
+                    if (pages != null) {
+                        searchPages = pages;
+                        searchRows = createPagedList(pages, searchResults);
+                        tblData.setItems(searchRows);
+                    } else {
+                        tblData.setItems(FXCollections.observableArrayList());
                     }
+                    tableData.setAll(searchResults);
                     
-                    // Actualizar gráfico con los resultados actuales
-                    updateChart(searchResults != null ? searchResults : new ArrayList<>());
+                    // Actualizar gráfico agregando todos los resultados en el cluster
+                    activeSearchField = fieldName;
+                    activeSearchText = searchText;
+                    loadDashboardSnapshot();
                     
                     // Actualizar label de resultados
-                    int resultCount = searchResults != null ? searchResults.size() : 0;
-                    lblSearchResults.setText(String.format("📊 %d resultados encontrados", resultCount));
+                    if (searchResults.size() < count.value()) {
+                        lblSearchResults.setText(String.format("📊 %s resultados encontrados (cargando por páginas de %d)", 
+                            count.display(), SEARCH_PAGE_SIZE));
+                    }
                     
                     isSearchActive = true;
                     btnSearch.setDisable(false);
                     
-                    logInfo(String.format("🔍 Búsqueda completada: '%s' en campo '%s' - %d resultados", 
-                           searchText, selectedField, resultCount));
+                    logInfo(String.format("🔍 Búsqueda completada: '%s' en campo '%s' - %s resultados", 
+                           searchText, selectedField, count.display()));
                 });
                 
+            } catch (InterruptedIOException e) {
+                // Cancelada por una búsqueda más reciente
             } catch (Exception e) {
-                Platform.runLater(() -> {
+                ui.post(() -> {
+                    if (!token.isCurrent()) return;
                     lblSearchResults.setText("❌ Error en búsqueda");
                     btnSearch.setDisable(false);
                     logError("❌ Error en búsqueda: " + e.getMessage());
@@ -849,6 +1428,94 @@ public class MainController {
         });
     }
 
+    /**
+     * Trae a memoria todas las ventas del índice (si es pequeño) y arma el índice invertido
+     * para el filtro local. Si el índice no cambió desde la última carga se reutiliza; si cambió,
+     * el anterior sigue filtrando hasta que el nuevo esté listo.
+     * @param total Documentos del índice
+     * @param generation Generación del índice al cargar la tabla (null = desconocida, se recarga)
+     */
+    private void loadLocalIndex(long total, String generation) {
+        if (total == 0 || total > LOCAL_FILTER_MAX_ROWS) {
+            localIndexLoad.cancel();
+            localIndex = null;
+            localIndexGeneration = null;
+            return;
+        }
+        if (localIndex != null && generation != null && generation.equals(localIndexGeneration)
+                && localIndex.size() == total) {
+            return; // Sigue al día
+        }
+        
+        localIndexLoad.run(token -> {
+            long start = System.nanoTime();
+            VentaColumns rows = new VentaColumns();
+            InvertedIndex<Venta> index = new InvertedIndex<>(Map.of(
+                "cliente", Venta::cliente,
+                "producto", Venta::producto,
+                "provincia", Venta::provincia), rows);
+            elasticsearchService.scrollVentas(DEFAULT_INDEX_NAME, LOCAL_FILTER_BATCH_SIZE, index::addAll);
+            long millis = (System.nanoTime() - start) / 1_000_000;
+            
+            ui.post(() -> {
+                if (!token.isCurrent()) return;
+                if (index.size() != total) {
+                    logWarning("⚠️ Filtro local no disponible: se leyeron " + index.size() + " de " + total + " ventas");
+                    return;
+                }
+                localIndex = index;
+                localIndexGeneration = generation;
+                logInfo("🗂️ Filtro local listo: " + index.size() + " ventas indexadas en " + millis + " ms ("
+                    + rows.dictionarySize() + " textos distintos)");
+            });
+        });
+    }
+
+    /**
+     * Indica si la búsqueda se puede resolver con el índice local y dar lo mismo que el cluster:
+     * el índice tiene todas las ventas, el campo está indexado y la consulta es texto simple.
+     * En todos los campos, el cluster también compara números y fechas: con dígitos se le consulta.
+     */
+    private boolean canFilterLocally(String fieldName, String searchText) {
+        return localIndex != null
+            && localIndex.size() == refreshedTotal
+            && localIndex.supports(fieldName, searchText)
+            && (fieldName != null || !HAS_DIGIT.matcher(searchText).find());
+    }
+
+    /**
+     * Búsqueda resuelta en memoria con el índice invertido (sin consultar el cluster);
+     * el gráfico se calcula sobre los resultados con el agregador local
+     */
+    private void filterLocally(String searchText, String fieldName, String selectedField) {
+        // Descartar la búsqueda en el cluster y las agregaciones de la vista anterior que sigan
+        // en curso: al terminar dibujarían su gráfico sobre los resultados filtrados
+        searchTask.cancel();
+        dashboardLoad.cancel();
+        
+        long start = System.nanoTime();
+        List<Venta> results = localIndex.search(fieldName, searchText);
+        long micros = (System.nanoTime() - start) / 1_000;
+        
+        if (!isSearchActive && !tableData.isEmpty()) {
+            originalData.setAll(tableData);
+        }
+        closeSearchPages();
+        tblData.setItems(FXCollections.observableArrayList(toRows(results)));
+        tableData.setAll(results);
+        
+        activeSearchField = fieldName;
+        activeSearchText = searchText;
+        isSearchActive = true;
+        dashboardSnapshot = null;
+        showSelectedChart();
+        
+        btnSearch.setDisable(false);
+        lblSearchResults.setText(String.format("📊 %d resultados encontrados (filtro local)", results.size()));
+        logInfo(String.format("🔍 Filtro local: '%s' en campo '%s' - %d resultados en %d µs", 
+               searchText, selectedField, results.size(), micros));
+    }
+
     public int getLastIndexedCount() {
         return lastIndexedCount;
     }
@@ -0,0 +1,10 @@
+package com.una.ale.models;
+
+/**
+ * Grupo resultante de una agregación
+ * @param key Valor del grupo (producto, provincia, cliente...)
+ * @param docCount Número de documentos del grupo
+ * @param value Valor de la métrica del grupo
+ */
+public record AggregationBucket(String key, long docCount, double value) {
+}
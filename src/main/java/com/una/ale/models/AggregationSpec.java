@@ -0,0 +1,77 @@
+package com.una.ale.models;
+
+import java.util.List;
+
+/**
+ * Describe una agregación del dashboard que se calcula en el cluster
+ * @param name Nombre de la agregación en la respuesta
+ * @param kind Tipo de agregación
+ * @param groupField Campo por el que se agrupa (null en percentiles)
+ * @param metricField Campo sobre el que se calcula la métrica de cada grupo
+ * @param size Número máximo de grupos (top-N ordenado por la métrica; no aplica a histogramas)
+ * @param timeZone Zona horaria para agrupar fechas (solo histogramas)
+ * @param precisionThreshold Conteo por debajo del cual cardinality es prácticamente exacto (solo cardinality)
+ * @param percents Percentiles a calcular, ej. 50, 95, 99 (solo percentiles)
+ */
+public record AggregationSpec(
+        String name,
+        Kind kind,
+        String groupField,
+        String metricField,
+        int size,
+        String timeZone,
+        int precisionThreshold,
+        List<Double> percents) {
+
+    /**
+     * Tipos de agregación soportados
+     */
+    public enum Kind {
+        /** terms sobre groupField con sum de metricField, ordenado por la suma */
+        TERMS_SUM,
+        /** date_histogram mensual sobre groupField con sum de metricField, en orden cronológico */
+        MONTHLY_SUM,
+        /** terms sobre groupField con el conteo aproximado (HyperLogLog++) de valores distintos de metricField */
+        TERMS_CARDINALITY,
+        /** percentiles aproximados (TDigest) de metricField sobre todos los documentos */
+        PERCENTILES
+    }
+
+    public AggregationSpec {
+        percents = percents != null ? List.copyOf(percents) : List.of();
+    }
+
+    /**
+     * Crea una agregación terms + sum ordenada por la suma descendente
+     */
+    public static AggregationSpec termsSum(String name, String groupField, String metricField, int size) {
+        return new AggregationSpec(name, Kind.TERMS_SUM, groupField, metricField, size, null, 0, null);
+    }
+
+    /**
+     * Crea un histograma mensual (calendar_interval=month) con la suma de la métrica por mes
+     * @param timeZone Zona horaria en la que se cortan los meses (ej. "UTC", "America/Costa_Rica")
+     */
+    public static AggregationSpec monthlySum(String name, String dateField, String metricField, String timeZone) {
+        return new AggregationSpec(name, Kind.MONTHLY_SUM, dateField, metricField, 0, timeZone, 0, null);
+    }
+
+    /**
+     * Crea una agregación terms con el número de valores distintos de un campo por grupo,
+     * ordenada por ese número descendente. La memoria por grupo la acota precisionThreshold.
+     * @param precisionThreshold Hasta este conteo el resultado es casi exacto (máximo 40000 en el cluster)
+     */
+    public static AggregationSpec termsCardinality(String name, String groupField, String distinctField,
+                                                   int size, int precisionThreshold) {
+        return new AggregationSpec(name, Kind.TERMS_CARDINALITY, groupField, distinctField, size, null,
+                                   precisionThreshold, null);
+    }
+
+    /**
+     * Crea una agregación de percentiles de un campo numérico (un grupo por percentil)
+     * @param percents Percentiles a calcular, entre 0 y 100
+     */
+    public static AggregationSpec percentiles(String name, String metricField, List<Double> percents) {
+        return new AggregationSpec(name, Kind.PERCENTILES, null, metricField, percents.size(), null, 0, percents);
+    }
+}
@@ -0,0 +1,20 @@
+package com.una.ale.models;
+
+import java.util.Set;
+
+/**
+ * Punto hasta el que ya se leyeron los documentos de un índice, por su campo indexed_at.
+ * Varios documentos pueden compartir el mismo milisegundo: los ya leídos en ese instante
+ * se guardan para pedir los nuevos con gte sin repetirlos.
+ * @param indexedAt indexed_at más reciente leído (epoch millis, Long.MIN_VALUE = ninguno)
+ * @param idsAtIndexedAt IDs de los documentos leídos con ese indexed_at
+ */
+public record ChangeWatermark(long indexedAt, Set<String> idsAtIndexedAt) {
+
+    /** Índice sin documentos leídos */
+    public static final ChangeWatermark NONE = new ChangeWatermark(Long.MIN_VALUE, Set.of());
+
+    public ChangeWatermark {
+        idsAtIndexedAt = Set.copyOf(idsAtIndexedAt);
+    }
+}
@@ -0,0 +1,86 @@
+package com.una.ale.models;
+
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Resultados de todas las agregaciones del dashboard obtenidos en una sola consulta.
+ * Se guarda en el cliente para cambiar de gráfico sin volver a consultar el cluster.
+ * @param buckets Grupos de cada agregación, por nombre de la agregación
+ */
+public record DashboardSnapshot(Map<String, List<AggregationBucket>> buckets) {
+
+    public DashboardSnapshot {
+        buckets = Map.copyOf(buckets);
+    }
+
+    /**
+     * Indica si el snapshot contiene la agregación
+     */
+    public boolean contains(String name) {
+        return buckets.containsKey(name);
+    }
+
+    /**
+     * Grupos de una agregación (lista vacía si no está en el snapshot)
+     */
+    public List<AggregationBucket> get(String name) {
+        return buckets.getOrDefault(name, List.of());
+    }
+
+    /**
+     * Suma a las agregaciones los grupos calculados sobre documentos nuevos, sin volver a
+     * consultar el cluster. Solo se actualizan las sumas cuyo resultado es exacto: histogramas
+     * mensuales y top-N que aún tienen menos grupos que N (contienen todos los grupos).
+     * Las demás (top-N completos, cardinality, percentiles) se omiten del resultado para que
+     * se vuelvan a calcular.
+     * @param delta Grupos de los documentos nuevos, por nombre de la agregación
+     * @param specs Agregaciones del snapshot
+     * @return Snapshot actualizado
+     */
+    public DashboardSnapshot merge(Map<String, List<AggregationBucket>> delta, List<AggregationSpec> specs) {
+        Map<String, List<AggregationBucket>> merged = new LinkedHashMap<>();
+        for (AggregationSpec spec : specs) {
+            if (!contains(spec.name())) continue;
+            List<AggregationBucket> current = get(spec.name());
+            List<AggregationBucket> added = delta.get(spec.name());
+            if (added == null || added.isEmpty()) {
+                merged.put(spec.name(), current);
+                continue;
+            }
+
+            switch (spec.kind()) {
+                case MONTHLY_SUM -> merged.put(spec.name(), addBuckets(current, added).stream()
+                    .sorted(Comparator.comparing(AggregationBucket::key))
+                    .toList());
+                case TERMS_SUM -> {
+                    if (current.size() < spec.size()) {
+                        merged.put(spec.name(), addBuckets(current, added).stream()
+                            .sorted(Comparator.comparingDouble(AggregationBucket::value).reversed())
+                            .limit(spec.size())
+                            .toList());
+                    }
+                }
+                default -> {
+                    // No se puede actualizar sumando: se recalcula en el cluster
+                }
+            }
+        }
+        return new DashboardSnapshot(merged);
+    }
+
+    private static List<AggregationBucket> addBuckets(List<AggregationBucket> current, List<AggregationBucket> added) {
+        Map<String, AggregationBucket> byKey = new HashMap<>();
+        for (AggregationBucket bucket : current) {
+            byKey.put(bucket.key(), bucket);
+        }
+        for (AggregationBucket bucket : added) {
+            byKey.merge(bucket.key(), bucket, (a, b) -> 
+                new AggregationBucket(a.key(), a.docCount() + b.docCount(), a.value() + b.value()));
+        }
+        return List.copyOf(byKey.values());
+    }
+}
@@ -0,0 +1,52 @@
+package com.una.ale.models;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Fila de la tabla de documentos genéricos: los campos mostrados ya convertidos a texto
+ */
+public final class DocumentRow extends RowModel {
+
+    /** Campos del documento en el orden de las columnas */
+    public static final List<String> FIELDS = List.of(
+        "_id", "id", "fecha", "cliente", "producto", "cantidad", "precio_unitario", "total", "provincia");
+
+    /** Fila que se muestra mientras se carga su página */
+    public static final DocumentRow LOADING = loading();
+
+    private DocumentRow(String[] texts) {
+        super(texts);
+    }
+
+    /**
+     * Crea la fila convirtiendo a texto cada campo mostrado ("-" si falta)
+     */
+    public static DocumentRow of(Map<String, Object> document) {
+        String[] texts = new String[FIELDS.size()];
+        for (int i = 0; i < texts.length; i++) {
+            Object value = document.get(FIELDS.get(i));
+            texts[i] = value != null ? value.toString() : "-";
+        }
+        return new DocumentRow(texts);
+    }
+
+    /**
+     * Índice de columna de un campo (para {@link #property(int)})
+     * @param field Nombre del campo (uno de {@link #FIELDS})
+     */
+    public static int column(String field) {
+        int column = FIELDS.indexOf(field);
+        if (column < 0) {
+            throw new IllegalArgumentException("Campo sin columna: " + field);
+        }
+        return column;
+    }
+
+    private static DocumentRow loading() {
+        String[] texts = new String[FIELDS.size()];
+        Arrays.fill(texts, "…");
+        return new DocumentRow(texts);
+    }
+}
@@ -0,0 +1,24 @@
+package com.una.ale.models;
+
+/**
+ * Estado de escritura de un índice según _stats
+ * @param uuid UUID del índice (cambia si se elimina y se vuelve a crear)
+ * @param seqNo Suma del max_seq_no de los shards primarios (avanza con cada escritura)
+ * @param docCount Documentos visibles en los shards primarios
+ */
+public record IndexGeneration(String uuid, long seqNo, long docCount) {
+
+    /**
+     * Token comparable de la generación (ej. para etiquetar datos guardados)
+     */
+    public String token() {
+        return uuid + "/" + seqNo;
+    }
+
+    /**
+     * Indica si es el mismo índice (no se recreó)
+     */
+    public boolean sameIndex(IndexGeneration other) {
+        return other != null && uuid.equals(other.uuid);
+    }
+}
@@ -0,0 +1,22 @@
+package com.una.ale.models;
+
+import java.util.List;
+
+/**
+ * Resumen de un índice obtenido en una sola consulta a _cat/indices
+ */
+public record IndexOverview(
+        String name,
+        String health,
+        String status,
+        long docsCount,
+        String storeSize,
+        List<String> aliases) {
+
+    /**
+     * Indica si es un índice del sistema (nombre con prefijo ".")
+     */
+    public boolean isSystemIndex() {
+        return name.startsWith(".");
+    }
+}
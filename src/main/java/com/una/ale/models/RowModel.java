@@ -0,0 +1,39 @@
+package com.una.ale.models;
+
+import javafx.beans.property.ReadOnlyStringProperty;
+import javafx.beans.property.ReadOnlyStringWrapper;
+
+/**
+ * Fila de tabla con el texto de cada columna ya formateado.
+ * El formateo se hace una sola vez al recibir los datos; las propiedades de solo lectura
+ * se crean la primera vez que una celda las pide y se reutilizan al desplazarse o redimensionar.
+ */
+public abstract class RowModel {
+
+    private final String[] texts;
+    private final ReadOnlyStringProperty[] properties;
+
+    protected RowModel(String[] texts) {
+        this.texts = texts;
+        this.properties = new ReadOnlyStringProperty[texts.length];
+    }
+
+    /**
+     * Texto ya formateado de una columna
+     */
+    public String text(int column) {
+        return texts[column];
+    }
+
+    /**
+     * Propiedad de solo lectura de una columna (cacheada en la fila)
+     */
+    public ReadOnlyStringProperty property(int column) {
+        ReadOnlyStringProperty property = properties[column];
+        if (property == null) {
+            property = new ReadOnlyStringWrapper(this, null, texts[column]).getReadOnlyProperty();
+            properties[column] = property;
+        }
+        return property;
+    }
+}
@@ -0,0 +1,16 @@
+package com.una.ale.models;
+
+/**
+ * Total de resultados de una búsqueda obtenido sin descargar documentos
+ * @param value Número de resultados
+ * @param exact false si el cluster dejó de contar al llegar al límite de track_total_hits
+ */
+public record SearchCount(long value, boolean exact) {
+
+    /**
+     * Texto para la interfaz, con "≥" cuando el total es una cota inferior
+     */
+    public String display() {
+        return exact ? String.valueOf(value) : "≥" + value;
+    }
+}
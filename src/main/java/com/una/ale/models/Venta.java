@@ -0,0 +1,32 @@
+package com.una.ale.models;
+
+import java.time.LocalDate;
+
+import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
+
+/**
+ * Documento de venta tipado tal como se indexa desde el Excel de ventas.
+ * Los valores numéricos y la fecha se convierten una sola vez al deserializar,
+ * de modo que la tabla y los gráficos trabajan con primitivos.
+ */
+@JsonDeserialize(using = VentaDeserializer.class)
+public record Venta(
+        String docId,
+        String id,
+        LocalDate fecha,
+        String cliente,
+        String producto,
+        int cantidad,
+        double precioUnitario,
+        double total,
+        String provincia) {
+
+    /**
+     * Retorna una copia de la venta con el ID del documento de Elasticsearch
+     * @param docId ID del documento (_id)
+     * @return Venta con el ID asignado
+     */
+    public Venta withDocId(String docId) {
+        return new Venta(docId, id, fecha, cliente, producto, cantidad, precioUnitario, total, provincia);
+    }
+}
@@ -0,0 +1,23 @@
+package com.una.ale.models;
+
+import java.util.List;
+
+/**
+ * Ventas indexadas después de una marca, en orden de indexed_at
+ * @param ventas Ventas nuevas leídas
+ * @param watermark Marca para la siguiente consulta
+ * @param totalMatches Ventas nuevas que hay en total (puede superar las leídas)
+ */
+public record VentaChanges(List<Venta> ventas, ChangeWatermark watermark, long totalMatches) {
+
+    public VentaChanges {
+        ventas = List.copyOf(ventas);
+    }
+
+    /**
+     * Indica si se leyeron todas las ventas nuevas
+     */
+    public boolean isComplete() {
+        return ventas.size() >= totalMatches;
+    }
+}
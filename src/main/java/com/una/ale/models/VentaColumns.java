@@ -0,0 +1,270 @@
+package com.una.ale.models;
+
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.RandomAccess;
+
+/**
+ * Ventas guardadas por columnas para mantener muchas filas en memoria con poco heap.
+ * Cliente, producto, provincia y el mes de la fecha se codifican con un diccionario (cada texto
+ * repetido se guarda una sola vez y las filas guardan su código int); la fecha se guarda como
+ * día epoch y los números en arreglos primitivos. No hay un objeto por fila: get() arma una
+ * Venta de paso, para quien necesite la lista; los gráficos leen directamente las columnas
+ * (codes, dictionary, totals, cantidades) sin armar ninguna venta.
+ * Las inserciones al inicio y los reemplazos completos se hacen en bloque (un solo
+ * desplazamiento de los arreglos). No es segura para uso concurrente.
+ */
+public final class VentaColumns extends AbstractList<Venta> implements RandomAccess {
+
+    /**
+     * Columnas codificadas con el diccionario
+     */
+    public enum Dimension { CLIENTE, PRODUCTO, PROVINCIA, MES }
+
+    private static final int INITIAL_CAPACITY = 64;
+    private static final int NO_DATE = Integer.MIN_VALUE;
+    private static final int NO_VALUE = -1;
+
+    // Diccionario compartido por las columnas de texto: código → texto y texto → código
+    private final List<String> dictionary = new ArrayList<>();
+    private final Map<String, Integer> codes = new HashMap<>();
+
+    private String[] docIds = new String[0];
+    private String[] ids = new String[0];
+    private int[] fechas = new int[0];
+    private int[] clientes = new int[0];
+    private int[] productos = new int[0];
+    private int[] cantidades = new int[0];
+    private double[] preciosUnitarios = new double[0];
+    private double[] totales = new double[0];
+    private int[] provincias = new int[0];
+    private int[] meses = new int[0];
+    private int size = 0;
+    private int version = 0;
+
+    public VentaColumns() {
+    }
+
+    /**
+     * @param ventas Filas iniciales
+     */
+    public VentaColumns(Collection<? extends Venta> ventas) {
+        addAll(ventas);
+    }
+
+    @Override
+    public Venta get(int index) {
+        checkIndex(index, size);
+        return new Venta(docIds[index], ids[index],
+            fechas[index] != NO_DATE ? LocalDate.ofEpochDay(fechas[index]) : null,
+            decode(clientes[index]), decode(productos[index]),
+            cantidades[index], preciosUnitarios[index], totales[index],
+            decode(provincias[index]));
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Número de cambios hechos a la lista; permite saber si algo calculado sobre ella quedó viejo
+     */
+    public int version() {
+        return version;
+    }
+
+    /**
+     * Textos distintos guardados en el diccionario (cliente, producto, provincia y mes)
+     */
+    public int dictionarySize() {
+        return dictionary.size();
+    }
+
+    /**
+     * Copia de los códigos de una dimensión, uno por fila (-1 = sin valor); los códigos
+     * se resuelven con dictionary()
+     */
+    public int[] codes(Dimension dimension) {
+        int[] column = switch (dimension) {
+            case CLIENTE -> clientes;
+            case PRODUCTO -> productos;
+            case PROVINCIA -> provincias;
+            case MES -> meses;
+        };
+        return Arrays.copyOf(column, size);
+    }
+
+    /**
+     * Copia del diccionario (código → texto), compartido por todas las dimensiones
+     */
+    public List<String> dictionary() {
+        return List.copyOf(dictionary);
+    }
+
+    /**
+     * Copia de los totales, uno por fila
+     */
+    public double[] totals() {
+        return Arrays.copyOf(totales, size);
+    }
+
+    /**
+     * Copia de las cantidades, una por fila
+     */
+    public double[] cantidades() {
+        double[] values = new double[size];
+        for (int row = 0; row < size; row++) {
+            values[row] = cantidades[row];
+        }
+        return values;
+    }
+
+    @Override
+    public Venta set(int index, Venta venta) {
+        Venta previous = get(index);
+        write(index, venta);
+        version++;
+        return previous;
+    }
+
+    @Override
+    public void add(int index, Venta venta) {
+        addAll(index, List.of(venta));
+    }
+
+    @Override
+    public boolean addAll(Collection<? extends Venta> ventas) {
+        return addAll(size, ventas);
+    }
+
+    @Override
+    public boolean addAll(int index, Collection<? extends Venta> ventas) {
+        checkIndex(index, size + 1);
+        if (ventas == this) ventas = new ArrayList<>(ventas);
+        int count = ventas.size();
+        if (count == 0) return false;
+
+        ensureCapacity(size + count);
+        shift(index, index + count, size - index);
+        int row = index;
+        for (Venta venta : ventas) {
+            write(row++, venta);
+        }
+        size += count;
+        modCount++;
+        version++;
+        return true;
+    }
+
+    @Override
+    public Venta remove(int index) {
+        Venta previous = get(index);
+        removeRange(index, index + 1);
+        return previous;
+    }
+
+    @Override
+    public void clear() {
+        removeRange(0, size);
+    }
+
+    /**
+     * Reemplaza todas las filas (como ObservableList#setAll)
+     */
+    public void setAll(Collection<? extends Venta> ventas) {
+        if (ventas == this) return;
+        clear();
+        addAll(ventas);
+    }
+
+    @Override
+    protected void removeRange(int fromIndex, int toIndex) {
+        if (fromIndex >= toIndex) return;
+        shift(toIndex, fromIndex, size - toIndex);
+        int newSize = size - (toIndex - fromIndex);
+        // Soltar las referencias de las filas que quedaron fuera
+        Arrays.fill(docIds, newSize, size, null);
+        Arrays.fill(ids, newSize, size, null);
+        size = newSize;
+        if (size == 0) {
+            dictionary.clear();
+            codes.clear();
+        }
+        modCount++;
+        version++;
+    }
+
+    private void write(int row, Venta venta) {
+        docIds[row] = venta.docId();
+        ids[row] = venta.id();
+        fechas[row] = venta.fecha() != null ? (int) venta.fecha().toEpochDay() : NO_DATE;
+        clientes[row] = encode(venta.cliente());
+        productos[row] = encode(venta.producto());
+        cantidades[row] = venta.cantidad();
+        preciosUnitarios[row] = venta.precioUnitario();
+        totales[row] = venta.total();
+        provincias[row] = encode(venta.provincia());
+        meses[row] = encode(venta.fecha() != null ? YearMonth.from(venta.fecha()).toString() : null);
+    }
+
+    private int encode(String value) {
+        if (value == null) return NO_VALUE;
+        Integer code = codes.get(value);
+        if (code == null) {
+            code = dictionary.size();
+            dictionary.add(value);
+            codes.put(value, code);
+        }
+        return code;
+    }
+
+    private String decode(int code) {
+        return code != NO_VALUE ? dictionary.get(code) : null;
+    }
+
+    /**
+     * Mueve un bloque de filas dentro de cada columna
+     */
+    private void shift(int from, int to, int length) {
+        if (length <= 0 || from == to) return;
+        System.arraycopy(docIds, from, docIds, to, length);
+        System.arraycopy(ids, from, ids, to, length);
+        System.arraycopy(fechas, from, fechas, to, length);
+        System.arraycopy(clientes, from, clientes, to, length);
+        System.arraycopy(productos, from, productos, to, length);
+        System.arraycopy(cantidades, from, cantidades, to, length);
+        System.arraycopy(preciosUnitarios, from, preciosUnitarios, to, length);
+        System.arraycopy(totales, from, totales, to, length);
+        System.arraycopy(provincias, from, provincias, to, length);
+        System.arraycopy(meses, from, meses, to, length);
+    }
+
+    private void ensureCapacity(int required) {
+        if (required <= docIds.length) return;
+        int capacity = Math.max(required, Math.max(INITIAL_CAPACITY, docIds.length + (docIds.length >> 1)));
+        docIds = Arrays.copyOf(docIds, capacity);
+        ids = Arrays.copyOf(ids, capacity);
+        fechas = Arrays.copyOf(fechas, capacity);
+        clientes = Arrays.copyOf(clientes, capacity);
+        productos = Arrays.copyOf(productos, capacity);
+        cantidades = Arrays.copyOf(cantidades, capacity);
+        preciosUnitarios = Arrays.copyOf(preciosUnitarios, capacity);
+        totales = Arrays.copyOf(totales, capacity);
+        provincias = Arrays.copyOf(provincias, capacity);
+        meses = Arrays.copyOf(meses, capacity);
+    }
+
+    private static void checkIndex(int index, int limit) {
+        if (index < 0 || index >= limit) {
+            throw new IndexOutOfBoundsException("Fila " + index + " fuera de rango (" + limit + ")");
+        }
+    }
+}
@@ -0,0 +1,108 @@
+package com.una.ale.models;
+
+import java.io.IOException;
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.DeserializationContext;
+import com.fasterxml.jackson.databind.deser.std.StdDeserializer;
+
+/**
+ * Deserializador de {@link Venta} que lee el _source directamente del stream JSON,
+ * sin pasar por un Map intermedio. Acepta los campos numéricos tanto como número
+ * como texto (el indexador de Excel los guarda como String).
+ */
+public class VentaDeserializer extends StdDeserializer<Venta> {
+
+    private static final long serialVersionUID = 1L;
+
+    private static final DateTimeFormatter FORMATO_BARRAS = DateTimeFormatter.ofPattern("M/d/yyyy");
+
+    public VentaDeserializer() {
+        super(Venta.class);
+    }
+
+    @Override
+    public Venta deserialize(JsonParser parser, DeserializationContext context) throws IOException {
+        String id = null;
+        LocalDate fecha = null;
+        String cliente = null;
+        String producto = null;
+        int cantidad = 0;
+        double precioUnitario = 0.0;
+        double total = 0.0;
+        String provincia = null;
+
+        JsonToken token = parser.currentToken();
+        if (token == JsonToken.START_OBJECT) {
+            token = parser.nextToken();
+        }
+
+        while (token == JsonToken.FIELD_NAME) {
+            String field = parser.currentName();
+            token = parser.nextToken();
+
+            switch (field) {
+                case "id" -> id = readText(parser, token);
+                case "fecha" -> fecha = parseFecha(readText(parser, token));
+                case "cliente" -> cliente = readText(parser, token);
+                case "producto" -> producto = readText(parser, token);
+                case "cantidad" -> cantidad = (int) readDouble(parser, token);
+                case "precio_unitario" -> precioUnitario = readDouble(parser, token);
+                case "total" -> total = readDouble(parser, token);
+                case "provincia" -> provincia = readText(parser, token);
+                default -> parser.skipChildren();
+            }
+            token = parser.nextToken();
+        }
+
+        return new Venta(null, id, fecha, cliente, producto, cantidad, precioUnitario, total, provincia);
+    }
+
+    /**
+     * Lee el valor actual como texto (null si el valor es null)
+     */
+    private String readText(JsonParser parser, JsonToken token) throws IOException {
+        if (token == JsonToken.VALUE_NULL) return null;
+        if (token.isStructStart()) {
+            parser.skipChildren();
+            return null;
+        }
+        return parser.getText();
+    }
+
+    /**
+     * Lee el valor actual como double, aceptando números o texto numérico
+     */
+    private double readDouble(JsonParser parser, JsonToken token) throws IOException {
+        if (token == JsonToken.VALUE_NUMBER_INT || token == JsonToken.VALUE_NUMBER_FLOAT) {
+            return parser.getDoubleValue();
+        }
+        String text = readText(parser, token);
+        if (text == null || text.isBlank()) return 0.0;
+        try {
+            return Double.parseDouble(text.trim());
+        } catch (NumberFormatException e) {
+            return 0.0;
+        }
+    }
+
+    /**
+     * Convierte la fecha del documento a LocalDate.
+     * Soporta ISO (yyyy-MM-dd o yyyy-MM-ddTHH:mm que genera ExcelReader) y M/d/yyyy.
+     */
+    public static LocalDate parseFecha(String value) {
+        if (value == null || value.isBlank()) return null;
+        try {
+            if (value.length() >= 10 && value.charAt(4) == '-') {
+                return LocalDate.parse(value.substring(0, 10));
+            }
+            return LocalDate.parse(value.trim(), FORMATO_BARRAS);
+        } catch (DateTimeParseException e) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,70 @@
+package com.una.ale.models;
+
+import java.util.Arrays;
+
+/**
+ * Fila de la tabla de ventas: la venta y sus columnas formateadas para mostrar
+ */
+public final class VentaRow extends RowModel {
+
+    public static final int ID = 0;
+    public static final int FECHA = 1;
+    public static final int CLIENTE = 2;
+    public static final int PRODUCTO = 3;
+    public static final int CANTIDAD = 4;
+    public static final int TOTAL = 5;
+    public static final int PROVINCIA = 6;
+    private static final int COLUMNS = 7;
+
+    /** Fila que se muestra mientras se carga su página */
+    public static final VentaRow LOADING = loading();
+
+    private final Venta venta;
+
+    private VentaRow(Venta venta, String[] texts) {
+        super(texts);
+        this.venta = venta;
+    }
+
+    /**
+     * Crea la fila formateando cada columna
+     */
+    public static VentaRow of(Venta venta) {
+        String[] texts = new String[COLUMNS];
+        texts[ID] = textOrDash(venta.id());
+        texts[FECHA] = venta.fecha() != null ? venta.fecha().toString() : "-";
+        texts[CLIENTE] = textOrDash(venta.cliente());
+        texts[PRODUCTO] = textOrDash(venta.producto());
+        texts[CANTIDAD] = String.valueOf(venta.cantidad());
+        texts[TOTAL] = formatCurrency(venta.total());
+        texts[PROVINCIA] = textOrDash(venta.provincia());
+        return new VentaRow(venta, texts);
+    }
+
+    /**
+     * Venta de la fila (null en la fila de carga)
+     */
+    public Venta venta() {
+        return venta;
+    }
+
+    private static VentaRow loading() {
+        String[] texts = new String[COLUMNS];
+        Arrays.fill(texts, "…");
+        return new VentaRow(null, texts);
+    }
+
+    /**
+     * Retorna el texto o "-" si es nulo
+     */
+    private static String textOrDash(String value) {
+        return value != null ? value : "-";
+    }
+
+    /**
+     * Formatea un monto en colones
+     */
+    private static String formatCurrency(double value) {
+        return String.format("₡%.0f", value);
+    }
+}
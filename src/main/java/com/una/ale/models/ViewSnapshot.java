@@ -0,0 +1,30 @@
+package com.una.ale.models;
+
+import java.util.List;
+
+/**
+ * Última vista del dashboard de un índice guardada en disco para mostrarla al arrancar
+ * @param generation Generación del índice cuando se guardó (ver ElasticsearchService#indexGeneration)
+ * @param savedAt Momento en que se guardó (epoch millis)
+ * @param total Número total de documentos del índice
+ * @param firstPage Primera página de la tabla
+ * @param dashboard Agregaciones de los gráficos (sin filtro de búsqueda)
+ */
+public record ViewSnapshot(
+        String generation,
+        long savedAt,
+        long total,
+        List<Venta> firstPage,
+        DashboardSnapshot dashboard) {
+
+    public ViewSnapshot {
+        firstPage = List.copyOf(firstPage);
+    }
+
+    /**
+     * Indica si la vista corresponde a la generación actual del índice
+     */
+    public boolean isCurrent(String currentGeneration) {
+        return generation.equals(currentGeneration);
+    }
+}
@@ -0,0 +1,61 @@
+package com.una.ale.services;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.una.ale.models.AggregationBucket;
+import com.una.ale.models.AggregationSpec;
+
+/**
+ * Caché LRU de resultados de agregaciones, acotada por número de entradas.
+ * La clave incluye la generación del índice: cuando una escritura propia la avanza,
+ * las entradas anteriores dejan de coincidir y se descartan al guardar la nueva.
+ */
+class AggregationCache {
+
+    static final int DEFAULT_MAX_ENTRIES = 256;
+
+    /**
+     * Identifica el resultado de una agregación para una generación concreta del índice
+     * (searchField/searchText nulos = sin filtro de búsqueda)
+     */
+    record Key(String indexName, long generation, AggregationSpec spec,
+               String searchField, String searchText) {
+    }
+
+    private final Map<Key, List<AggregationBucket>> entries;
+
+    AggregationCache() {
+        this(DEFAULT_MAX_ENTRIES);
+    }
+
+    AggregationCache(int maxEntries) {
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Key, List<AggregationBucket>> eldest) {
+                return size() > maxEntries;
+            }
+        };
+    }
+
+    /**
+     * Grupos cacheados para la clave o null si no están
+     */
+    synchronized List<AggregationBucket> get(Key key) {
+        return entries.get(key);
+    }
+
+    /**
+     * Guarda un resultado descartando los de generaciones anteriores del mismo índice
+     */
+    synchronized void put(Key key, List<AggregationBucket> buckets) {
+        entries.keySet().removeIf(k ->
+            k.indexName().equals(key.indexName()) && k.generation() < key.generation());
+        entries.put(key, List.copyOf(buckets));
+    }
+
+    synchronized int size() {
+        return entries.size();
+    }
+}
@@ -1,33 +1,148 @@
 package com.una.ale.services;
 
+import co.elastic.clients.elasticsearch.ElasticsearchAsyncClient;
 import co.elastic.clients.elasticsearch.ElasticsearchClient;
+import co.elastic.clients.elasticsearch._types.ElasticsearchException;
+import co.elastic.clients.elasticsearch._types.FieldValue;
+import co.elastic.clients.elasticsearch._types.Level;
+import co.elastic.clients.elasticsearch._types.SortOrder;
+import co.elastic.clients.elasticsearch._types.Script;
+import co.elastic.clients.elasticsearch._types.aggregations.Aggregate;
+import co.elastic.clients.elasticsearch._types.aggregations.Aggregation;
+import co.elastic.clients.elasticsearch._types.aggregations.ArrayPercentilesItem;
+import co.elastic.clients.elasticsearch._types.aggregations.CalendarInterval;
+import co.elastic.clients.elasticsearch._types.aggregations.CompositeAggregate;
+import co.elastic.clients.elasticsearch._types.aggregations.CompositeAggregationSource;
+import co.elastic.clients.elasticsearch._types.aggregations.CompositeBucket;
+import co.elastic.clients.elasticsearch._types.aggregations.DateHistogramBucket;
+import co.elastic.clients.elasticsearch._types.aggregations.StringTermsBucket;
+import co.elastic.clients.elasticsearch._types.mapping.Property;
+import co.elastic.clients.elasticsearch._types.mapping.TypeMapping;
 import co.elastic.clients.elasticsearch.core.InfoResponse;
 import co.elastic.clients.elasticsearch.core.IndexResponse;
 import co.elastic.clients.elasticsearch.core.BulkRequest;
 import co.elastic.clients.elasticsearch.core.BulkResponse;
 import co.elastic.clients.elasticsearch.core.SearchResponse;
 import co.elastic.clients.elasticsearch.core.CountResponse;
+import co.elastic.clients.elasticsearch.core.ScrollResponse;
 import co.elastic.clients.elasticsearch.core.bulk.BulkResponseItem;
+import co.elastic.clients.elasticsearch.cat.aliases.AliasesRecord;
+import co.elastic.clients.elasticsearch.cat.indices.IndicesRecord;
 import co.elastic.clients.elasticsearch.core.search.Hit;
+import co.elastic.clients.elasticsearch.core.search.TotalHits;
+import co.elastic.clients.elasticsearch.core.search.TotalHitsRelation;
+import co.elastic.clients.elasticsearch._types.query_dsl.Query;
 import co.elastic.clients.elasticsearch.indices.GetIndexResponse;
+import co.elastic.clients.elasticsearch.indices.IndexState;
+import co.elastic.clients.elasticsearch.indices.IndicesStatsResponse;
+import co.elastic.clients.elasticsearch.indices.stats.IndicesStats;
+import co.elastic.clients.elasticsearch.indices.stats.ShardStats;
+import co.elastic.clients.json.JsonData;
+import co.elastic.clients.util.NamedValue;
 
+import java.io.BufferedWriter;
 import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Comparator;
+import java.util.PriorityQueue;
 import java.util.List;
 import java.util.Map;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.ArrayList;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
 
+import com.una.ale.models.AggregationBucket;
+import com.una.ale.models.AggregationSpec;
+import com.una.ale.models.ChangeWatermark;
+import com.una.ale.models.DashboardSnapshot;
+import com.una.ale.models.IndexGeneration;
+import com.una.ale.models.IndexOverview;
+import com.una.ale.models.SearchCount;
+import com.una.ale.models.Venta;
+import com.una.ale.models.VentaChanges;
 import com.una.ale.util.ElasticConnection;
+import com.una.ale.util.Log;
+import com.una.ale.util.SingleFlight;
 
 /**
  * Servicio que demuestra el uso correcto de la conexión a Elasticsearch
  */
 public class ElasticsearchService {
 
+    // Nombre de la sub-agregación con la métrica de cada grupo
+    private static final String METRIC_AGG = "metrica";
+    
+    // Nombre de la sub-agregación de grupos dentro del filtro por dimensión del índice resumen
+    private static final String SUMMARY_GROUPS_AGG = "grupos";
+    
+    // Sub-agregación con las ventas de cada grupo del índice resumen (cada documento resume varias)
+    private static final String SUMMARY_SALES_AGG = "ventas";
+    
+    // Total de ventas que cubre el índice resumen (suma de la dimensión mensual)
+    private static final String SUMMARY_COVERAGE_AGG = "cobertura";
+    
+    // Agregación composite: nombre, fuente y grupos por página
+    private static final String COMPOSITE_AGG = "paginas";
+    private static final String COMPOSITE_KEY = "grupo";
+    private static final int COMPOSITE_PAGE_SIZE = 1000;
+    
+    // Máximo de meses que se leen del índice resumen (100 años)
+    private static final int MAX_SUMMARY_MONTHS = 1200;
+    
+    // Documentos más recientes que se leen para fijar la marca de cambios (comparten milisegundo)
+    private static final int WATERMARK_PROBE_SIZE = 100;
+    
+    // Errores por documento que se registran antes de resumir el resto en una línea
+    private static final int MAX_LOGGED_ITEM_ERRORS = 5;
+    private static final Log.Limiter INDEX_ERRORS = 
+        Log.limited("indexación de documentos", MAX_LOGGED_ITEM_ERRORS, Duration.ofSeconds(10));
+    
+    // Tipos de campo numéricos sobre los que se puede sumar directamente
+    private static final Set<Property.Kind> NUMERIC_KINDS = Set.of(
+        Property.Kind.Long, Property.Kind.Integer, Property.Kind.Short, Property.Kind.Byte,
+        Property.Kind.Double, Property.Kind.Float, Property.Kind.HalfFloat, 
+        Property.Kind.ScaledFloat, Property.Kind.UnsignedLong
+    );
+
     private ElasticConnection connection;
+    private final IndexMetadataCache metadataCache;
+    
+    // Consultas de lectura compartidas entre llamadores concurrentes
+    private final SingleFlight<String, InfoResponse> infoRequests = new SingleFlight<>();
+    private final SingleFlight<String, List<String>> indexListRequests = new SingleFlight<>();
+    private final SingleFlight<String, List<IndexOverview>> overviewRequests = new SingleFlight<>();
+    private final SingleFlight<String, Long> countRequests = new SingleFlight<>();
+    
+    // Agregaciones ya calculadas, válidas mientras no cambie la generación del índice
+    private final AggregationCache aggregationCache = new AggregationCache();
+    
+    // Última generación del cluster vista por índice: si cambia, otro proceso pudo escribir
+    private final Map<String, IndexGeneration> observedGenerations = new ConcurrentHashMap<>();
+    
+    // Ventas cubiertas por cada índice resumen en su última generación leída
+    private final Map<String, SummaryCoverage> summaryCoverage = new ConcurrentHashMap<>();
+    
+    /**
+     * Ventas que suma un índice resumen en una generación dada
+     */
+    private record SummaryCoverage(long generation, long ventas) {
+    }
+    
+    // Última respuesta de info(), reutilizada por getClusterInfo tras testConnection
+    private volatile InfoResponse lastInfo;
+    private volatile long lastInfoAt;
 
     public ElasticsearchService() {
         this.connection = new ElasticConnection();
+        this.metadataCache = new IndexMetadataCache();
     }
 
     /**
@@ -36,12 +151,11 @@ public class ElasticsearchService {
      */
     public boolean testConnection() {
         try {
-            ElasticsearchClient client = connection.connect();
-            InfoResponse info = client.info();
-            System.out.println("Conectado a Elasticsearch: " + info.version().number());
+            InfoResponse info = fetchInfo(false);
+            Log.info("Conectado a Elasticsearch: " + info.version().number());
             return true;
         } catch (IOException e) {
-            System.err.println("Error al conectar con Elasticsearch: " + e.getMessage());
+            Log.error("Error al conectar con Elasticsearch: " + e.getMessage());
             return false;
         }
     }
@@ -52,18 +166,46 @@ public class ElasticsearchService {
      */
     public String getClusterInfo() {
         try {
-            ElasticsearchClient client = connection.connect();
-            InfoResponse info = client.info();
+            InfoResponse info = fetchInfo(true);
             return String.format("Cluster: %s, Versión: %s, Lucene: %s", 
                     info.clusterName(), 
                     info.version().number(), 
                     info.version().luceneVersion());
         } catch (IOException e) {
-            System.err.println("Error al obtener información del cluster: " + e.getMessage());
+            Log.error("Error al obtener información del cluster: " + e.getMessage());
             return null;
         }
     }
 
+    /**
+     * Obtiene la respuesta de info() compartiendo la consulta en curso si la hay
+     * @param allowRecent si se puede reutilizar una respuesta reciente
+     */
+    private InfoResponse fetchInfo(boolean allowRecent) throws IOException {
+        InfoResponse recent = lastInfo;
+        if (allowRecent && recent != null 
+                && System.nanoTime() - lastInfoAt < IndexMetadataCache.DEFAULT_TTL.toNanos()) {
+            return recent;
+        }
+        
+        return infoRequests.execute("info", () -> {
+            InfoResponse info = connection.connect().info();
+            lastInfo = info;
+            lastInfoAt = System.nanoTime();
+            return info;
+        });
+    }
+
+    /**
+     * Descarta los metadatos y agregaciones cacheadas de un índice y de su índice resumen,
+     * por ejemplo cuando otro proceso pudo haberlos modificado
+     * @param indexName Nombre del índice
+     */
+    public void invalidateIndex(String indexName) {
+        metadataCache.invalidate(indexName);
+        metadataCache.invalidate(summaryIndexName(indexName));
+    }
+
     /**
      * Cierra la conexión y libera recursos
      */
@@ -88,11 +230,12 @@ public class ElasticsearchService {
                 .document(document)
             );
             
-            System.out.println("✅ Documento indexado: " + response.id());
+            metadataCache.invalidate(indexName);
+            Log.debug(() -> "✅ Documento indexado: " + response.id());
             return response.id();
             
         } catch (IOException e) {
-            System.err.println("❌ Error indexando documento: " + e.getMessage());
+            INDEX_ERRORS.error("❌ Error indexando documento: " + e.getMessage());
             return null;
         }
     }
@@ -114,11 +257,12 @@ public class ElasticsearchService {
                 .document(document)
             );
             
-            System.out.println("✅ Documento indexado con ID: " + response.id());
+            metadataCache.invalidate(indexName);
+            Log.debug(() -> "✅ Documento indexado con ID: " + response.id());
             return true;
             
         } catch (IOException e) {
-            System.err.println("❌ Error indexando documento con ID: " + e.getMessage());
+            INDEX_ERRORS.error("❌ Error indexando documento con ID: " + e.getMessage());
             return false;
         }
     }
@@ -146,27 +290,28 @@ public class ElasticsearchService {
             }
             
             BulkResponse bulkResponse = client.bulk(bulkBuilder.build());
+            metadataCache.invalidate(indexName);
             
             int successCount = 0;
             int errorCount = 0;
+            Log.Limiter itemErrors = Log.limited("documentos del bulk", MAX_LOGGED_ITEM_ERRORS);
             
             for (BulkResponseItem item : bulkResponse.items()) {
                 if (item.error() != null) {
                     errorCount++;
-                    System.err.println("❌ Error en documento: " + item.error().reason());
+                    itemErrors.error("❌ Error en documento: " + item.error().reason());
                 } else {
                     successCount++;
                 }
             }
+            itemErrors.flush();
             
-            System.out.println("✅ Bulk indexing completado:");
-            System.out.println("   - Exitosos: " + successCount);
-            System.out.println("   - Errores: " + errorCount);
+            Log.info("✅ Bulk indexing completado:\n   - Exitosos: " + successCount + "\n   - Errores: " + errorCount);
             
             return successCount;
             
         } catch (IOException e) {
-            System.err.println("❌ Error en bulk indexing: " + e.getMessage());
+            Log.error("❌ Error en bulk indexing: " + e.getMessage());
             return 0;
         }
     }
@@ -178,12 +323,30 @@ public class ElasticsearchService {
      * @param headers Lista de headers para mapear columnas
      * @return Número de documentos indexados
      */
-    @SuppressWarnings("null")
     public int indexExcelData(String indexName, Map<Integer, List<String>> excelData, List<String> headers) {
+        return indexExcelData(indexName, excelData, headers, false);
+    }
+
+    /**
+     * Indexa datos de Excel en Elasticsearch y opcionalmente mantiene el índice resumen
+     * @param indexName Nombre del índice
+     * @param excelData Datos del Excel (Map con filas)
+     * @param headers Lista de headers para mapear columnas
+     * @param maintainSummary true para sumar las filas indexadas al índice resumen
+     *                        (ver {@link #summaryIndexName(String)})
+     * @return Número de documentos indexados
+     */
+    @SuppressWarnings("null")
+    public int indexExcelData(String indexName, Map<Integer, List<String>> excelData, List<String> headers,
+                              boolean maintainSummary) {
         try {
             ElasticsearchClient client = connection.connect();
             
+            // Crear el índice con tipos explícitos para poder agregar en el cluster
+            createSalesIndexIfMissing(client, indexName);
+            
             BulkRequest.Builder bulkBuilder = new BulkRequest.Builder();
+            List<Map<String, Object>> documents = new ArrayList<>();
             
             // Procesar cada fila (saltando headers en la fila 0)
             for (int rowIndex = 1; rowIndex < excelData.size(); rowIndex++) {
@@ -204,6 +367,7 @@ public class ElasticsearchService {
                 // Agregar metadata
                 document.put("row_number", rowIndex);
                 document.put("indexed_at", java.time.Instant.now().toString());
+                documents.add(document);
                 
                 bulkBuilder.operations(op -> op
                     .index(idx -> idx
@@ -214,32 +378,164 @@ public class ElasticsearchService {
             }
             
             BulkResponse bulkResponse = client.bulk(bulkBuilder.build());
+            metadataCache.invalidate(indexName);
             
             int successCount = 0;
             int errorCount = 0;
+            SalesSummary summary = new SalesSummary();
             
-            for (BulkResponseItem item : bulkResponse.items()) {
+            List<BulkResponseItem> items = bulkResponse.items();
+            Log.Limiter rowErrors = Log.limited("filas del Excel", MAX_LOGGED_ITEM_ERRORS);
+            for (int i = 0; i < items.size(); i++) {
+                BulkResponseItem item = items.get(i);
                 if (item.error() != null) {
                     errorCount++;
-                    System.err.println("❌ Error en fila: " + item.error().reason());
+                    rowErrors.error("❌ Error en fila: " + item.error().reason());
                 } else {
                     successCount++;
+                    // Solo las filas indexadas cuentan en el resumen
+                    if (maintainSummary) {
+                        summary.add(documents.get(i));
+                    }
                 }
             }
+            rowErrors.flush();
             
-            System.out.println("📊 Indexación de Excel completada:");
-            System.out.println("   - Índice: " + indexName);
-            System.out.println("   - Documentos exitosos: " + successCount);
-            System.out.println("   - Errores: " + errorCount);
+            Log.info("📊 Indexación de Excel completada:\n   - Índice: " + indexName 
+                + "\n   - Documentos exitosos: " + successCount + "\n   - Errores: " + errorCount);
+            
+            if (maintainSummary && !summary.isEmpty()) {
+                // Las ventas ya quedaron indexadas: un fallo del resumen no invalida la carga
+                // (el dashboard deja de usar el resumen mientras no cubra todas las ventas)
+                try {
+                    updateSalesSummary(client, summaryIndexName(indexName), summary);
+                } catch (IOException | ElasticsearchException e) {
+                    Log.warn("⚠️ No se pudo actualizar el índice resumen: " + e.getMessage());
+                }
+            }
             
             return successCount;
             
         } catch (IOException e) {
-            System.err.println("❌ Error indexando datos de Excel: " + e.getMessage());
+            Log.error("❌ Error indexando datos de Excel: " + e.getMessage());
             return 0;
         }
     }
 
+    /**
+     * Crea el índice de ventas con un mapping explícito si aún no existe:
+     * textos con subcampo keyword, cantidades y montos numéricos y fechas como date.
+     * Los campos que no aparecen aquí siguen usando el mapping dinámico.
+     */
+    private void createSalesIndexIfMissing(ElasticsearchClient client, String indexName) throws IOException {
+        if (metadataCache.exists(indexName).orElse(false)) {
+            return;
+        }
+        
+        try {
+            client.indices().create(c -> c
+                .index(indexName)
+                .mappings(m -> m
+                    .properties("id", p -> p.keyword(k -> k))
+                    .properties("fecha", p -> p.date(d -> d))
+                    .properties("cliente", p -> p.text(t -> t.fields("keyword", f -> f.keyword(k -> k.ignoreAbove(256)))))
+                    .properties("producto", p -> p.text(t -> t.fields("keyword", f -> f.keyword(k -> k.ignoreAbove(256)))))
+                    .properties("provincia", p -> p.text(t -> t.fields("keyword", f -> f.keyword(k -> k.ignoreAbove(256)))))
+                    .properties("cantidad", p -> p.integer(i -> i))
+                    .properties("precio_unitario", p -> p.double_(d -> d))
+                    .properties("total", p -> p.double_(d -> d))
+                    .properties("row_number", p -> p.integer(i -> i))
+                    .properties("indexed_at", p -> p.date(d -> d))
+                )
+            );
+            metadataCache.invalidate(indexName);
+            Log.info("🗂️ Índice '" + indexName + "' creado con mapping de ventas");
+            
+        } catch (ElasticsearchException e) {
+            // Si ya existe se conserva su mapping actual
+            if (e.error() == null || !"resource_already_exists_exception".equals(e.error().type())) {
+                throw e;
+            }
+        }
+    }
+
+    /**
+     * Nombre del índice resumen asociado a un índice de ventas
+     * @param indexName Nombre del índice de ventas
+     * @return Nombre del índice resumen
+     */
+    public static String summaryIndexName(String indexName) {
+        return indexName + "_resumen";
+    }
+
+    /**
+     * Suma los totales de una carga al índice resumen con upserts con script:
+     * un documento por (dimensión, valor, mes), creado o incrementado en una sola operación bulk
+     */
+    @SuppressWarnings("null")
+    private void updateSalesSummary(ElasticsearchClient client, String summaryIndex, SalesSummary summary) throws IOException {
+        createSummaryIndexIfMissing(client, summaryIndex);
+        
+        BulkRequest.Builder bulkBuilder = new BulkRequest.Builder();
+        for (SalesSummary.Totals totals : summary.totals()) {
+            Map<String, Object> upsert = totals.toDocument();
+            bulkBuilder.operations(op -> op
+                .update(u -> u
+                    .index(summaryIndex)
+                    .id(totals.documentId())
+                    .retryOnConflict(3)
+                    .action(a -> a
+                        .script(sc -> sc.inline(i -> i
+                            .source("ctx._source.total += params.total; "
+                                  + "ctx._source.cantidad += params.cantidad; "
+                                  + "ctx._source.ventas += params.ventas;")
+                            .params("total", JsonData.of(totals.total))
+                            .params("cantidad", JsonData.of(totals.cantidad))
+                            .params("ventas", JsonData.of(totals.ventas))
+                        ))
+                        .upsert(upsert)
+                    )
+                )
+            );
+        }
+        
+        BulkResponse response = client.bulk(bulkBuilder.build());
+        metadataCache.invalidate(summaryIndex);
+        
+        long errors = response.items().stream().filter(item -> item.error() != null).count();
+        Log.info("🧮 Índice resumen '" + summaryIndex + "' actualizado: " 
+            + summary.totals().size() + " documentos, " + errors + " errores");
+    }
+
+    /**
+     * Crea el índice resumen si aún no existe
+     */
+    private void createSummaryIndexIfMissing(ElasticsearchClient client, String summaryIndex) throws IOException {
+        if (metadataCache.exists(summaryIndex).orElse(false)) {
+            return;
+        }
+        
+        try {
+            client.indices().create(c -> c
+                .index(summaryIndex)
+                .mappings(m -> m
+                    .properties("dimension", p -> p.keyword(k -> k))
+                    .properties("valor", p -> p.keyword(k -> k))
+                    .properties("mes", p -> p.keyword(k -> k))
+                    .properties("total", p -> p.double_(d -> d))
+                    .properties("cantidad", p -> p.double_(d -> d))
+                    .properties("ventas", p -> p.long_(l -> l))
+                )
+            );
+            Log.info("🗂️ Índice resumen '" + summaryIndex + "' creado");
+            
+        } catch (ElasticsearchException e) {
+            if (e.error() == null || !"resource_already_exists_exception".equals(e.error().type())) {
+                throw e;
+            }
+        }
+    }
+
     /**
      * Ejemplo de uso con try-with-resources
      */
@@ -249,7 +545,7 @@ public class ElasticsearchService {
             boolean connected = service.testConnection();
             if (connected) {
                 String info = service.getClusterInfo();
-                System.out.println("Información del cluster: " + info);
+                Log.info("Información del cluster: " + info);
             }
         } finally {
             service.close();
@@ -262,23 +558,33 @@ public class ElasticsearchService {
      * @return Número de documentos o 0 si el índice no existe
      */
     public long countDocuments(String indexName) {
+        // Usar metadatos recientes si los hay (incluye índices que sabemos inexistentes)
+        var cachedCount = metadataCache.docCount(indexName);
+        if (cachedCount.isPresent()) {
+            return cachedCount.get();
+        }
+        
         try {
-            ElasticsearchClient client = connection.connect();
+            long count = countRequests.execute(indexName, () -> {
+                CountResponse countResponse = ElasticConnection.await(
+                    connection.connectAsync().count(c -> c.index(indexName)));
+                metadataCache.putDocCount(indexName, countResponse.count());
+                return countResponse.count();
+            });
+            
+            Log.debug(() -> "📊 Documentos en índice '" + indexName + "': " + count);
+            return count;
             
-            // Verificar si el índice existe primero
-            boolean indexExists = client.indices().exists(e -> e.index(indexName)).value();
-            if (!indexExists) {
-                System.out.println("📋 El índice '" + indexName + "' no existe, retornando count = 0");
+        } catch (ElasticsearchException e) {
+            if (isNotFound(e)) {
+                metadataCache.markMissing(indexName);
+                Log.info("📋 El índice '" + indexName + "' no existe, retornando count = 0");
                 return 0;
             }
-            
-            CountResponse countResponse = client.count(c -> c.index(indexName));
-            
-            System.out.println("📊 Documentos en índice '" + indexName + "': " + countResponse.count());
-            return countResponse.count();
-            
+            Log.error("❌ Error contando documentos: " + e.getMessage());
+            return 0;
         } catch (IOException e) {
-            System.err.println("❌ Error contando documentos: " + e.getMessage());
+            Log.error("❌ Error contando documentos: " + e.getMessage());
             return 0; // Retornar 0 en lugar de -1 para que se proceda con la indexación
         }
     }
@@ -302,7 +608,7 @@ public class ElasticsearchService {
                 .query(q -> q.matchAll(m -> m))
             , Map.class);
             
-            System.out.println("🔍 Encontrados " + searchResponse.hits().hits().size() + " documentos");
+            Log.debug(() -> "🔍 Encontrados " + searchResponse.hits().hits().size() + " documentos");
             
             for (Hit<Map> hit : searchResponse.hits().hits()) {
                 Map<String, Object> document = new HashMap<>();
@@ -317,12 +623,130 @@ public class ElasticsearchService {
             }
             
         } catch (IOException e) {
-            System.err.println("❌ Error buscando documentos: " + e.getMessage());
+            Log.error("❌ Error buscando documentos: " + e.getMessage());
         }
         
         return documents;
     }
 
+    /**
+     * Abre un recorrido por páginas de las ventas de un índice (PIT + search_after),
+     * para cargar la tabla bajo demanda sin traer todo el índice a memoria
+     * @param indexName Nombre del índice
+     * @param fieldName Campo de la búsqueda o null para todos los campos
+     * @param searchText Texto a buscar o null para recorrer todo el índice
+     * @param pageSize Ventas por página
+     * @return Recorrido abierto (cerrarlo libera el PIT)
+     * @throws IOException si no se puede abrir el PIT
+     */
+    public PagedSearch<Venta, Venta> openVentaPages(String indexName, String fieldName, String searchText,
+                                                    int pageSize) throws IOException {
+        Query query = searchText != null 
+            ? buildSearchQuery(fieldName, searchText) 
+            : Query.of(q -> q.matchAll(m -> m));
+        return new PagedSearch<>(connection, indexName, query, pageSize, Venta.class,
+                                 hit -> hit.source().withDocId(hit.id())).open();
+    }
+
+    /**
+     * Abre un recorrido por páginas de los documentos de cualquier índice, como mapas
+     * con "_id" e "_index" además de los campos del _source
+     * @param indexName Nombre del índice
+     * @param pageSize Documentos por página
+     * @return Recorrido abierto (cerrarlo libera el PIT)
+     * @throws IOException si no se puede abrir el PIT
+     */
+    @SuppressWarnings({"rawtypes", "unchecked"})
+    public PagedSearch<Map, Map<String, Object>> openDocumentPages(String indexName, int pageSize) throws IOException {
+        return new PagedSearch<Map, Map<String, Object>>(connection, indexName, Query.of(q -> q.matchAll(m -> m)), 
+                                                         pageSize, Map.class, hit -> {
+            Map<String, Object> document = new HashMap<>();
+            document.put("_id", hit.id());
+            document.put("_index", hit.index());
+            if (hit.source() != null) {
+                document.putAll(hit.source());
+            }
+            return document;
+        }).open();
+    }
+
+    /**
+     * Marca de los documentos más recientes del índice por indexed_at, para pedir después
+     * solo los que se indexen a partir de ella
+     * @param indexName Nombre del índice
+     * @return Marca actual (ChangeWatermark.NONE si el índice está vacío)
+     * @throws IOException si hay error en la consulta
+     */
+    public ChangeWatermark changeWatermark(String indexName) throws IOException {
+        SearchResponse<Void> response = ElasticConnection.await(connection.connectAsync().search(s -> s
+            .index(indexName)
+            .size(WATERMARK_PROBE_SIZE)
+            .source(src -> src.fetch(false))
+            .trackTotalHits(t -> t.enabled(false))
+            .sort(so -> so.field(f -> f.field("indexed_at").order(SortOrder.Desc)))
+        , Void.class));
+        return nextWatermark(response.hits().hits(), ChangeWatermark.NONE);
+    }
+
+    /**
+     * Ventas indexadas desde una marca (indexed_at mayor o igual, sin las ya leídas en ese instante)
+     * @param indexName Nombre del índice
+     * @param since Marca de la última lectura
+     * @param maxDocs Máximo de ventas a leer
+     * @return Ventas nuevas en orden de indexación y la marca siguiente
+     * @throws IOException si hay error en la consulta
+     */
+    public VentaChanges fetchVentasSince(String indexName, ChangeWatermark since, int maxDocs) throws IOException {
+        Query query = Query.of(q -> q.bool(b -> {
+            if (since.indexedAt() != Long.MIN_VALUE) {
+                b.filter(f -> f.range(r -> r.field("indexed_at")
+                    .gte(JsonData.of(since.indexedAt())).format("epoch_millis")));
+            }
+            if (!since.idsAtIndexedAt().isEmpty()) {
+                b.mustNot(m -> m.ids(i -> i.values(List.copyOf(since.idsAtIndexedAt()))));
+            }
+            return b;
+        }));
+
+        SearchResponse<Venta> response = ElasticConnection.await(connection.connectAsync().search(s -> s
+            .index(indexName)
+            .size(maxDocs)
+            .query(query)
+            .trackTotalHits(t -> t.enabled(true))
+            .sort(so -> so.field(f -> f.field("indexed_at").order(SortOrder.Asc)))
+        , Venta.class));
+
+        List<Hit<Venta>> hits = response.hits().hits();
+        List<Venta> ventas = new ArrayList<>(hits.size());
+        for (Hit<Venta> hit : hits) {
+            if (hit.source() != null) {
+                ventas.add(hit.source().withDocId(hit.id()));
+            }
+        }
+        long total = response.hits().total() != null ? response.hits().total().value() : ventas.size();
+        return new VentaChanges(ventas, nextWatermark(hits, since), total);
+    }
+
+    /**
+     * Marca del documento con mayor indexed_at entre los leídos (usa los valores de orden)
+     */
+    private ChangeWatermark nextWatermark(List<? extends Hit<?>> hits, ChangeWatermark previous) {
+        long latest = previous.indexedAt();
+        Set<String> ids = new HashSet<>(previous.idsAtIndexedAt());
+        for (Hit<?> hit : hits) {
+            if (hit.sort().isEmpty() || !hit.sort().get(0).isLong()) continue;
+            long indexedAt = hit.sort().get(0).longValue();
+            if (indexedAt > latest) {
+                latest = indexedAt;
+                ids.clear();
+            }
+            if (indexedAt == latest) {
+                ids.add(hit.id());
+            }
+        }
+        return new ChangeWatermark(latest, ids);
+    }
+
     /**
      * Obtiene información de un índice específico
      * @param indexName Nombre del índice
@@ -332,25 +756,90 @@ public class ElasticsearchService {
         try {
             ElasticsearchClient client = connection.connect();
             
+            // Obtener aliases y mapping del índice (o de la caché)
+            var cachedAliases = metadataCache.aliases(indexName);
+            Set<String> aliases;
+            if (cachedAliases.isPresent()) {
+                aliases = cachedAliases.get();
+            } else {
+                GetIndexResponse indexResponse = client.indices().get(g -> g.index(indexName));
+                IndexState state = indexResponse.result().get(indexName);
+                aliases = Set.copyOf(state.aliases().keySet());
+                metadataCache.putIndex(indexName, aliases, state.mappings());
+            }
+            
             // Contar documentos
             long docCount = countDocuments(indexName);
             
-            // Obtener información del índice
-            GetIndexResponse indexResponse = client.indices().get(g -> g.index(indexName));
-            
             StringBuilder info = new StringBuilder();
             info.append("📋 Información del Índice: ").append(indexName).append("\n");
             info.append("📊 Documentos: ").append(docCount).append("\n");
-            info.append("🏷️ Aliases: ").append(indexResponse.result().get(indexName).aliases().keySet()).append("\n");
+            info.append("🏷️ Aliases: ").append(aliases).append("\n");
             
             return info.toString();
             
+        } catch (ElasticsearchException e) {
+            if (isNotFound(e)) {
+                metadataCache.markMissing(indexName);
+                return "📋 El índice '" + indexName + "' no existe\n";
+            }
+            Log.error("❌ Error obteniendo información del índice: " + e.getMessage());
+            return "Error obteniendo información del índice: " + e.getMessage();
         } catch (IOException e) {
-            System.err.println("❌ Error obteniendo información del índice: " + e.getMessage());
+            Log.error("❌ Error obteniendo información del índice: " + e.getMessage());
             return "Error obteniendo información del índice: " + e.getMessage();
         }
     }
 
+    /**
+     * Generación de un índice: cambia cada vez que se escribe en él (o si se recrea).
+     * Se arma con el UUID del índice y la suma del max_seq_no de sus shards primarios,
+     * que a diferencia de los contadores de indexación no se reinicia con los nodos.
+     * Es una consulta liviana, apta para sondear cambios periódicamente. Si la generación cambió
+     * desde la última vez que se leyó, se descartan las cachés del índice (ver invalidateIndex):
+     * así las agregaciones cacheadas siguen la generación del cluster y no solo las escrituras propias.
+     * @param indexName Nombre del índice
+     * @return Generación o null si el índice no existe
+     * @throws IOException si hay error en la consulta
+     */
+    public IndexGeneration indexGeneration(String indexName) throws IOException {
+        try {
+            IndicesStatsResponse response = ElasticConnection.await(connection.connectAsync().indices()
+                .stats(s -> s.index(indexName).metric("docs").level(Level.Shards)));
+            IndicesStats stats = response.indices().get(indexName);
+            if (stats == null) return observeGeneration(indexName, null);
+
+            long maxSeqNo = 0;
+            for (List<ShardStats> copies : stats.shards().values()) {
+                for (ShardStats shard : copies) {
+                    if (shard.routing() != null && shard.routing().primary() && shard.seqNo() != null) {
+                        maxSeqNo += shard.seqNo().maxSeqNo() + 1;
+                    }
+                }
+            }
+            long docCount = stats.primaries() != null && stats.primaries().docs() != null 
+                ? stats.primaries().docs().count() : 0;
+            return observeGeneration(indexName, new IndexGeneration(stats.uuid(), maxSeqNo, docCount));
+
+        } catch (ElasticsearchException e) {
+            if (isNotFound(e)) return observeGeneration(indexName, null);
+            throw e;
+        }
+    }
+
+    /**
+     * Registra la generación leída e invalida las cachés del índice si difiere de la anterior
+     */
+    private IndexGeneration observeGeneration(String indexName, IndexGeneration generation) {
+        IndexGeneration previous = generation != null 
+            ? observedGenerations.put(indexName, generation) 
+            : observedGenerations.remove(indexName);
+        if (previous != null && !previous.equals(generation)) {
+            invalidateIndex(indexName);
+        }
+        return generation;
+    }
+
     /**
      * Lista todos los índices disponibles en Elasticsearch
      * @return Lista de nombres de índices
@@ -359,21 +848,87 @@ public class ElasticsearchService {
         List<String> indices = new ArrayList<>();
         
         try {
-            ElasticsearchClient client = connection.connect();
-            
-            GetIndexResponse response = client.indices().get(g -> g.index("*"));
-            
-            indices.addAll(response.result().keySet());
+            indices.addAll(indexListRequests.execute("*", () -> {
+                GetIndexResponse response = connection.connect().indices().get(g -> g.index("*"));
+                
+                // Aprovechar la respuesta para poblar la caché de metadatos
+                response.result().forEach((name, state) -> 
+                    metadataCache.putIndex(name, Set.copyOf(state.aliases().keySet()), state.mappings())
+                );
+                return List.copyOf(response.result().keySet());
+            }));
             
-            System.out.println("📋 Índices encontrados: " + indices);
+            Log.info("📋 Índices encontrados: " + indices);
             
         } catch (IOException e) {
-            System.err.println("❌ Error listando índices: " + e.getMessage());
+            Log.error("❌ Error listando índices: " + e.getMessage());
         }
         
         return indices;
     }
 
+    /**
+     * Obtiene un resumen de todos los índices (documentos, tamaño, salud y aliases)
+     * con dos consultas fijas a _cat/indices y _cat/aliases, sin importar cuántos índices haya
+     * @return Lista de índices ordenada por nombre o lista vacía si hay error
+     */
+    public List<IndexOverview> getIndicesOverview() {
+        List<IndexOverview> overview = new ArrayList<>();
+        
+        try {
+            overview.addAll(overviewRequests.execute("overview", this::loadIndicesOverview));
+            Log.info("📋 Resumen de " + overview.size() + " índices obtenido");
+            
+        } catch (IOException e) {
+            Log.error("❌ Error obteniendo resumen de índices: " + e.getMessage());
+        }
+        
+        return overview;
+    }
+
+    /**
+     * Consulta _cat/indices y _cat/aliases y arma el resumen de índices
+     */
+    private List<IndexOverview> loadIndicesOverview() throws IOException {
+        ElasticsearchClient client = connection.connect();
+        
+        List<IndicesRecord> indices = client.cat().indices().valueBody();
+        List<AliasesRecord> aliases = client.cat().aliases().valueBody();
+        
+        // Agrupar aliases por índice
+        Map<String, List<String>> aliasesByIndex = new HashMap<>();
+        for (AliasesRecord alias : aliases) {
+            aliasesByIndex.computeIfAbsent(alias.index(), k -> new ArrayList<>()).add(alias.alias());
+        }
+        
+        List<IndexOverview> overview = new ArrayList<>(indices.size());
+        for (IndicesRecord record : indices) {
+            overview.add(new IndexOverview(
+                record.index(),
+                record.health(),
+                record.status(),
+                parseLong(record.docsCount()),
+                record.storeSize() != null ? record.storeSize() : "-",
+                aliasesByIndex.getOrDefault(record.index(), List.of())
+            ));
+        }
+        
+        overview.sort(Comparator.comparing(IndexOverview::name));
+        return List.copyOf(overview);
+    }
+
+    /**
+     * Convierte un valor numérico de la API _cat (puede venir nulo en índices cerrados)
+     */
+    private long parseLong(String value) {
+        if (value == null || value.isBlank()) return 0;
+        try {
+            return Long.parseLong(value.trim());
+        } catch (NumberFormatException e) {
+            return 0;
+        }
+    }
+
     /**
      * Imprime los primeros documentos de un índice de forma legible
      * @param indexName Nombre del índice
@@ -381,117 +936,162 @@ public class ElasticsearchService {
      */
     public void printIndexContent(String indexName, int maxDocuments) {
         try {
-            System.out.println("\n📋 === CONTENIDO DEL ÍNDICE: " + indexName + " ===");
+            // Todo el contenido se arma primero y se registra en un solo mensaje
+            StringBuilder text = new StringBuilder();
+            text.append("\n📋 === CONTENIDO DEL ÍNDICE: ").append(indexName).append(" ===");
             
             // Información general
             long totalDocs = countDocuments(indexName);
-            System.out.println("📊 Total de documentos: " + totalDocs);
+            text.append("\n📊 Total de documentos: ").append(totalDocs);
             
             // Obtener documentos
             List<Map<String, Object>> documents = searchDocuments(indexName, maxDocuments);
             
             if (documents.isEmpty()) {
-                System.out.println("❌ No se encontraron documentos");
+                text.append("\n❌ No se encontraron documentos");
+                Log.info(text.toString());
                 return;
             }
             
             // Mostrar documentos
             for (int i = 0; i < documents.size(); i++) {
                 Map<String, Object> doc = documents.get(i);
-                System.out.println("\n📄 Documento " + (i + 1) + ":");
-                System.out.println("   ID: " + doc.get("_id"));
+                text.append("\n\n📄 Documento ").append(i + 1).append(":");
+                text.append("\n   ID: ").append(doc.get("_id"));
                 
                 // Mostrar campos (excluyendo metadatos)
-                doc.entrySet().stream()
-                   .filter(entry -> !entry.getKey().startsWith("_"))
-                   .forEach(entry -> 
-                       System.out.println("   " + entry.getKey() + ": " + entry.getValue())
-                   );
+                for (Map.Entry<String, Object> entry : doc.entrySet()) {
+                    if (!entry.getKey().startsWith("_")) {
+                        text.append("\n   ").append(entry.getKey()).append(": ").append(entry.getValue());
+                    }
+                }
             }
             
             if (totalDocs > maxDocuments) {
-                System.out.println("\n💡 Mostrando " + maxDocuments + " de " + totalDocs + " documentos");
+                text.append("\n\n💡 Mostrando ").append(maxDocuments).append(" de ").append(totalDocs).append(" documentos");
             }
+            Log.info(text.toString());
             
         } catch (Exception e) {
-            System.err.println("❌ Error mostrando contenido del índice: " + e.getMessage());
+            Log.error("❌ Error mostrando contenido del índice: " + e.getMessage());
         }
     }
     
     /**
-     * Busca documentos en todos los campos usando query_string simple
+     * Cuenta los resultados de una búsqueda con una consulta size=0 (sin descargar documentos)
      * @param indexName Nombre del índice
+     * @param fieldName Campo donde buscar o null para todos los campos
      * @param searchText Texto a buscar
-     * @return Lista de documentos que coinciden con la búsqueda (sin duplicados)
+     * @param exactTotal true para contar exactamente aunque se superen los 10.000 resultados
+     *                   (track_total_hits=true); false usa el límite por defecto del cluster
+     * @return Total de resultados
      * @throws IOException si hay error en la búsqueda
      */
-    @SuppressWarnings("unchecked")
-    public List<Map<String, Object>> searchAllFields(String indexName, String searchText) throws IOException {
-        ElasticsearchClient client = connection.connect();
-        
-        SearchResponse<Map<String, Object>> response = client.search(s -> s
-            .index(indexName)
-            .size(1000) // Máximo de resultados
-            .query(q -> q
-                .queryString(qs -> qs
-                    .query(searchText)
-                )
-            )
-        , (Class<Map<String, Object>>) (Class<?>) Map.class);
+    public SearchCount countSearchResults(String indexName, String fieldName, String searchText, boolean exactTotal) throws IOException {
+        ElasticsearchAsyncClient client = connection.connectAsync();
         
-        // Usar LinkedHashMap para mantener orden y evitar duplicados por ID
-        Map<String, Map<String, Object>> uniqueResults = new java.util.LinkedHashMap<>();
-        
-        for (Hit<Map<String, Object>> hit : response.hits().hits()) {
-            String docId = hit.id();
-            if (!uniqueResults.containsKey(docId)) {
-                Map<String, Object> doc = new HashMap<>(hit.source());
-                doc.put("_id", docId);
-                doc.put("_score", hit.score());
-                uniqueResults.put(docId, doc);
+        SearchResponse<Void> response = ElasticConnection.await(client.search(s -> {
+            s.index(indexName)
+             .size(0)
+             .requestCache(true)
+             .query(buildSearchQuery(fieldName, searchText));
+            if (exactTotal) {
+                s.trackTotalHits(t -> t.enabled(true));
             }
-        }
+            return s;
+        }, Void.class));
         
-        return new ArrayList<>(uniqueResults.values());
+        TotalHits total = response.hits().total();
+        if (total == null) {
+            return new SearchCount(0, true);
+        }
+        return new SearchCount(total.value(), total.relation() == TotalHitsRelation.Eq);
     }
-    
+
     /**
-     * Busca documentos en un campo específico
-     * @param indexName Nombre del índice
-     * @param fieldName Nombre del campo
+     * Construye la consulta de búsqueda: query_string en todos los campos o match en uno
+     * @param fieldName Campo donde buscar o null para todos los campos
      * @param searchText Texto a buscar
-     * @return Lista de documentos que coinciden con la búsqueda (sin duplicados)
-     * @throws IOException si hay error en la búsqueda
      */
-    @SuppressWarnings("unchecked")
-    public List<Map<String, Object>> searchByField(String indexName, String fieldName, String searchText) throws IOException {
-        ElasticsearchClient client = connection.connect();
-        
-        SearchResponse<Map<String, Object>> response = client.search(s -> s
-            .index(indexName)
-            .size(1000) // Máximo de resultados
-            .query(q -> q
-                .match(m -> m
-                    .field(fieldName)
-                    .query(searchText)
-                )
-            )
-        , (Class<Map<String, Object>>) (Class<?>) Map.class);
-        
-        // Usar LinkedHashMap para mantener orden y evitar duplicados por ID
-        Map<String, Map<String, Object>> uniqueResults = new java.util.LinkedHashMap<>();
+    private Query buildSearchQuery(String fieldName, String searchText) {
+        if (fieldName == null) {
+            return Query.of(q -> q.queryString(qs -> qs.query(searchText)));
+        }
+        return Query.of(q -> q.match(m -> m.field(fieldName).query(searchText)));
+    }
+
+    /**
+     * Recorre todas las ventas de un índice con la Scroll API, entregándolas por lotes
+     * @param indexName Nombre del índice
+     * @param batchSize Tamaño de cada lote
+     * @param consumer Recibe cada lote de ventas
+     * @return Número total de ventas recorridas
+     */
+    public long scrollVentas(String indexName, int batchSize, Consumer<List<Venta>> consumer) {
+        long total = 0;
+        String scrollId = null;
         
-        for (Hit<Map<String, Object>> hit : response.hits().hits()) {
-            String docId = hit.id();
-            if (!uniqueResults.containsKey(docId)) {
-                Map<String, Object> doc = new HashMap<>(hit.source());
-                doc.put("_id", docId);
-                doc.put("_score", hit.score());
-                uniqueResults.put(docId, doc);
+        try {
+            ElasticsearchClient client = connection.connect();
+            
+            SearchResponse<Venta> first = client.search(s -> s
+                .index(indexName)
+                .size(batchSize)
+                .scroll(t -> t.time("1m"))
+                .query(q -> q.matchAll(m -> m))
+            , Venta.class);
+            
+            scrollId = first.scrollId();
+            List<Hit<Venta>> hits = first.hits().hits();
+            
+            while (!hits.isEmpty()) {
+                consumer.accept(toVentas(hits));
+                total += hits.size();
+                
+                final String currentScrollId = scrollId;
+                ScrollResponse<Venta> next = client.scroll(s -> s
+                    .scrollId(currentScrollId)
+                    .scroll(t -> t.time("1m"))
+                , Venta.class);
+                
+                scrollId = next.scrollId();
+                hits = next.hits().hits();
             }
+            
+            Log.info("📜 Scroll completado: " + total + " ventas en '" + indexName + "'");
+            
+        } catch (IOException e) {
+            Log.error("❌ Error recorriendo ventas con scroll: " + e.getMessage());
+        } finally {
+            clearScroll(scrollId);
         }
         
-        return new ArrayList<>(uniqueResults.values());
+        return total;
+    }
+
+    /**
+     * Libera el contexto de scroll en el cluster
+     */
+    private void clearScroll(String scrollId) {
+        if (scrollId == null) return;
+        try {
+            connection.connect().clearScroll(c -> c.scrollId(scrollId));
+        } catch (IOException e) {
+            Log.warn("⚠️ No se pudo liberar el scroll: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Convierte los hits tipados en ventas con su ID de documento
+     */
+    private List<Venta> toVentas(List<Hit<Venta>> hits) {
+        List<Venta> ventas = new ArrayList<>(hits.size());
+        for (Hit<Venta> hit : hits) {
+            if (hit.source() != null) {
+                ventas.add(hit.source().withDocId(hit.id()));
+            }
+        }
+        return ventas;
     }
     
     /**
@@ -503,21 +1103,580 @@ public class ElasticsearchService {
         try {
             ElasticsearchClient client = connection.connect();
             
-            // Verificar si el índice existe
-            boolean exists = client.indices().exists(e -> e.index(indexName)).value();
-            if (!exists) {
-                System.out.println("📋 El índice '" + indexName + "' no existe");
-                return true; // No hay nada que eliminar
-            }
-            
-            // Eliminar el índice
+            // Eliminar el índice directamente; un 404 indica que no existía
             client.indices().delete(d -> d.index(indexName));
-            System.out.println("🗑️ Índice '" + indexName + "' eliminado exitosamente");
+            metadataCache.markMissing(indexName);
+            Log.info("🗑️ Índice '" + indexName + "' eliminado exitosamente");
+            
+            // El índice resumen deja de corresponder a los datos: se elimina con él si existe
+            String summaryIndex = summaryIndexName(indexName);
+            client.indices().delete(d -> d.index(summaryIndex).ignoreUnavailable(true));
+            metadataCache.markMissing(summaryIndex);
             return true;
             
+        } catch (ElasticsearchException e) {
+            if (isNotFound(e)) {
+                metadataCache.markMissing(indexName);
+                Log.info("📋 El índice '" + indexName + "' no existe");
+                return true; // No hay nada que eliminar
+            }
+            Log.error("❌ Error eliminando índice '" + indexName + "': " + e.getMessage());
+            return false;
         } catch (IOException e) {
-            System.err.println("❌ Error eliminando índice '" + indexName + "': " + e.getMessage());
+            Log.error("❌ Error eliminando índice '" + indexName + "': " + e.getMessage());
             return false;
         }
     }
+
+    /**
+     * Indica si el error del cluster corresponde a un índice inexistente (HTTP 404)
+     */
+    private boolean isNotFound(ElasticsearchException e) {
+        return e.status() == 404;
+    }
+
+    /**
+     * Calcula varias agregaciones hermanas en una sola consulta size=0 (snapshot del dashboard).
+     * Las agregaciones que no se pueden construir para el mapping del índice se omiten
+     * del snapshot y las que ya están cacheadas para la generación actual no se vuelven a pedir.
+     * @param indexName Nombre del índice
+     * @param specs Agregaciones a calcular (nombres únicos)
+     * @param fieldName Campo de la búsqueda activa o null para todos los campos
+     * @param searchText Texto de la búsqueda activa o null para agregar sobre todo el índice
+     * @return Snapshot con los grupos de cada agregación calculada
+     * @throws IOException si hay error en la consulta
+     */
+    public DashboardSnapshot aggregateDashboard(String indexName, List<AggregationSpec> specs,
+                                                String fieldName, String searchText) throws IOException {
+        return aggregateDashboard(indexName, specs, fieldName, searchText, false);
+    }
+
+    /**
+     * Calcula el snapshot del dashboard leyendo del índice resumen cuando es posible.
+     * Sin búsqueda activa y con el índice resumen disponible, las agregaciones terms/mensuales
+     * se responden desde los documentos resumen; el resto se calcula sobre el índice de ventas.
+     * El resumen solo se usa si cubre todas las ventas del índice (las indexadas por otras vías
+     * o antes de crearlo no están en él); si no, todo se calcula sobre el índice de ventas.
+     * @param preferSummary true para usar el índice resumen si existe
+     * @see #aggregateDashboard(String, List, String, String)
+     */
+    public DashboardSnapshot aggregateDashboard(String indexName, List<AggregationSpec> specs,
+                                                String fieldName, String searchText,
+                                                boolean preferSummary) throws IOException {
+        if (!preferSummary || searchText != null) {
+            return aggregateIndex(indexName, specs, fieldName, searchText);
+        }
+        
+        List<AggregationSpec> summarySpecs = specs.stream().filter(this::isSummarySupported).toList();
+        DashboardSnapshot fromSummary = aggregateSummary(summaryIndexName(indexName), summarySpecs, 
+            countDocuments(indexName));
+        if (fromSummary == null) {
+            return aggregateIndex(indexName, specs, null, null);
+        }
+        
+        List<AggregationSpec> remaining = specs.stream().filter(spec -> !fromSummary.contains(spec.name())).toList();
+        if (remaining.isEmpty()) {
+            return fromSummary;
+        }
+        
+        Map<String, List<AggregationBucket>> merged = new HashMap<>(fromSummary.buckets());
+        merged.putAll(aggregateIndex(indexName, remaining, null, null).buckets());
+        return new DashboardSnapshot(merged);
+    }
+
+    /**
+     * Calcula las agregaciones sobre el índice de ventas en una sola consulta
+     */
+    private DashboardSnapshot aggregateIndex(String indexName, List<AggregationSpec> specs,
+                                             String fieldName, String searchText) throws IOException {
+        long generation = metadataCache.generation(indexName);
+        Map<String, List<AggregationBucket>> results = new HashMap<>();
+        Map<String, Aggregation> aggregations = new HashMap<>();
+        Map<String, AggregationSpec> requested = new HashMap<>();
+        
+        TypeMapping mapping = getMapping(indexName);
+        for (AggregationSpec spec : specs) {
+            List<AggregationBucket> cached = aggregationCache.get(
+                new AggregationCache.Key(indexName, generation, spec, fieldName, searchText));
+            if (cached != null) {
+                results.put(spec.name(), cached);
+                continue;
+            }
+            try {
+                aggregations.put(spec.name(), buildAggregation(spec, mapping));
+                requested.put(spec.name(), spec);
+            } catch (IllegalStateException e) {
+                Log.warn("⚠️ Agregación '" + spec.name() + "' omitida: " + e.getMessage());
+            }
+        }
+        
+        if (aggregations.isEmpty()) {
+            Log.debug("📈 Snapshot del dashboard servido desde caché");
+            return new DashboardSnapshot(results);
+        }
+        
+        SearchResponse<Void> response = ElasticConnection.await(connection.connectAsync().search(s -> s
+            .index(indexName)
+            .size(0)
+            .requestCache(true) // Caché de resultados por shard del cluster
+            .query(searchText != null 
+                ? buildSearchQuery(fieldName, searchText) 
+                : Query.of(q -> q.matchAll(m -> m)))
+            .aggregations(aggregations)
+        , Void.class));
+        
+        for (AggregationSpec spec : requested.values()) {
+            List<AggregationBucket> buckets = List.copyOf(readBuckets(response.aggregations().get(spec.name())));
+            results.put(spec.name(), buckets);
+            aggregationCache.put(new AggregationCache.Key(indexName, generation, spec, fieldName, searchText), buckets);
+        }
+        
+        Log.info("📈 Snapshot del dashboard: " + requested.size() + " agregaciones en una consulta");
+        return new DashboardSnapshot(results);
+    }
+
+    /**
+     * Recorre todos los grupos de un campo con una agregación composite, página a página
+     * con after_key. Cada consulta tiene un costo acotado por pageSize en el cluster y el cliente
+     * solo mantiene una página en memoria, sin importar cuántos valores distintos tenga el campo.
+     * @param indexName Nombre del índice
+     * @param groupField Campo por el que se agrupa
+     * @param metricField Campo que se suma en cada grupo
+     * @param pageSize Grupos por consulta
+     * @param fieldName Campo de la búsqueda activa o null para todos los campos
+     * @param searchText Texto de la búsqueda activa o null para recorrer todo el índice
+     * @param pageConsumer Recibe cada página de grupos, en orden ascendente por clave
+     * @return Número total de grupos recorridos
+     * @throws IOException si hay error en la consulta
+     */
+    public long forEachGroupPage(String indexName, String groupField, String metricField, int pageSize,
+                                 String fieldName, String searchText,
+                                 Consumer<List<AggregationBucket>> pageConsumer) throws IOException {
+        ElasticsearchAsyncClient client = connection.connectAsync();
+        TypeMapping mapping = getMapping(indexName);
+        String keyword = keywordField(mapping, groupField);
+        Aggregation metric = sumAggregation(mapping, metricField);
+        Query query = searchText != null 
+            ? buildSearchQuery(fieldName, searchText) 
+            : Query.of(q -> q.matchAll(m -> m));
+        
+        Map<String, FieldValue> afterKey = null;
+        long total = 0;
+        
+        do {
+            Map<String, FieldValue> after = afterKey;
+            SearchResponse<Void> response = ElasticConnection.await(client.search(s -> s
+                .index(indexName)
+                .size(0)
+                .query(query)
+                .aggregations(COMPOSITE_AGG, a -> a
+                    .composite(c -> {
+                        c.size(pageSize)
+                         .sources(List.of(Map.of(COMPOSITE_KEY, CompositeAggregationSource.of(src -> src
+                             .terms(t -> t.field(keyword))))));
+                        return after != null ? c.after(after) : c;
+                    })
+                    .aggregations(METRIC_AGG, metric)
+                )
+            , Void.class));
+            
+            CompositeAggregate composite = response.aggregations().get(COMPOSITE_AGG).composite();
+            List<AggregationBucket> page = new ArrayList<>();
+            for (CompositeBucket bucket : composite.buckets().array()) {
+                FieldValue key = bucket.key().get(COMPOSITE_KEY);
+                page.add(new AggregationBucket(key.isString() ? key.stringValue() : String.valueOf(key._get()), 
+                    bucket.docCount(), metricValue(bucket.aggregations().get(METRIC_AGG))));
+            }
+            
+            if (page.isEmpty()) break;
+            total += page.size();
+            pageConsumer.accept(page);
+            afterKey = composite.afterKey();
+        } while (afterKey != null && !afterKey.isEmpty());
+        
+        return total;
+    }
+
+    /**
+     * Top-N exacto por la suma de la métrica: recorre todos los grupos con composite
+     * y conserva los N mayores en un heap (memoria O(N) en el cliente)
+     * @return Grupos ordenados por la métrica descendente
+     * @throws IOException si hay error en la consulta
+     */
+    public List<AggregationBucket> rankGroups(String indexName, String groupField, String metricField, int topN,
+                                              String fieldName, String searchText) throws IOException {
+        PriorityQueue<AggregationBucket> top = new PriorityQueue<>(
+            Comparator.comparingDouble(AggregationBucket::value));
+        
+        long groups = forEachGroupPage(indexName, groupField, metricField, COMPOSITE_PAGE_SIZE, 
+                                       fieldName, searchText, page -> {
+            for (AggregationBucket bucket : page) {
+                if (top.size() < topN) {
+                    top.add(bucket);
+                } else if (bucket.value() > top.peek().value()) {
+                    top.poll();
+                    top.add(bucket);
+                }
+            }
+        });
+        
+        List<AggregationBucket> ranking = new ArrayList<>(top);
+        ranking.sort(Comparator.comparingDouble(AggregationBucket::value).reversed());
+        Log.info("🏆 Ranking exacto de '" + groupField + "': top " + ranking.size() + " de " + groups + " grupos");
+        return ranking;
+    }
+
+    /**
+     * Exporta a CSV la suma de la métrica por cada valor del campo (todos los grupos),
+     * escribiendo página a página sin acumular los grupos en memoria
+     * @param output Archivo CSV de salida (se sobrescribe)
+     * @return Número de filas exportadas
+     * @throws IOException si hay error en la consulta o al escribir
+     */
+    public long exportGroupTotalsCsv(String indexName, String groupField, String metricField, 
+                                     Path output) throws IOException {
+        try (BufferedWriter writer = Files.newBufferedWriter(output, StandardCharsets.UTF_8)) {
+            writer.write(groupField + ",documentos," + metricField);
+            writer.newLine();
+            
+            long rows = forEachGroupPage(indexName, groupField, metricField, COMPOSITE_PAGE_SIZE, null, null, page -> {
+                try {
+                    for (AggregationBucket bucket : page) {
+                        writer.write(csvField(bucket.key()) + "," + bucket.docCount() + "," 
+                            + BigDecimal.valueOf(bucket.value()).toPlainString());
+                        writer.newLine();
+                    }
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+            
+            Log.info("💾 " + rows + " totales por '" + groupField + "' exportados a " + output);
+            return rows;
+            
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    /**
+     * Escapa un valor para CSV (comillas si contiene separadores)
+     */
+    private String csvField(String value) {
+        if (value.contains(",") || value.contains("\"") || value.contains("\n")) {
+            return "\"" + value.replace("\"", "\"\"") + "\"";
+        }
+        return value;
+    }
+
+    /**
+     * Indica si la agregación se puede responder desde el índice resumen
+     */
+    private boolean isSummarySupported(AggregationSpec spec) {
+        return spec.kind() == AggregationSpec.Kind.MONTHLY_SUM
+            || (spec.kind() == AggregationSpec.Kind.TERMS_SUM && SalesSummary.DIMENSIONS.contains(spec.groupField()));
+    }
+
+    /**
+     * Calcula agregaciones sobre el índice resumen: por cada especificación filtra su dimensión
+     * y suma la métrica y las ventas por valor. Retorna null si el índice resumen no existe
+     * o no cubre todas las ventas del índice.
+     * @param salesCount Documentos del índice de ventas
+     */
+    private DashboardSnapshot aggregateSummary(String summaryIndex, List<AggregationSpec> specs, 
+                                               long salesCount) throws IOException {
+        if (!metadataCache.exists(summaryIndex).orElse(true)) {
+            return null;
+        }
+        
+        long generation = metadataCache.generation(summaryIndex);
+        SummaryCoverage coverage = summaryCoverage.get(summaryIndex);
+        boolean coverageKnown = coverage != null && coverage.generation() == generation;
+        if (coverageKnown && coverage.ventas() != salesCount) {
+            return null; // Ya se informó al leer esta generación
+        }
+        
+        Map<String, List<AggregationBucket>> results = new HashMap<>();
+        Map<String, Aggregation> aggregations = new HashMap<>();
+        
+        for (AggregationSpec spec : specs) {
+            List<AggregationBucket> cached = aggregationCache.get(
+                new AggregationCache.Key(summaryIndex, generation, spec, null, null));
+            if (cached != null) {
+                results.put(spec.name(), cached);
+                continue;
+            }
+            
+            boolean monthly = spec.kind() == AggregationSpec.Kind.MONTHLY_SUM;
+            String dimension = monthly ? SalesSummary.MONTH_DIMENSION : spec.groupField();
+            aggregations.put(spec.name(), Aggregation.of(a -> a
+                // Las ventas sin fecha no son un mes del gráfico
+                .filter(f -> f.bool(b -> b
+                    .filter(q -> q.term(t -> t.field("dimension").value(dimension)))
+                    .mustNot(q -> q.term(t -> t.field("valor").value(SalesSummary.NO_MONTH)))))
+                .aggregations(SUMMARY_GROUPS_AGG, g -> g
+                    .terms(t -> t
+                        .field("valor")
+                        .size(monthly ? MAX_SUMMARY_MONTHS : spec.size())
+                        .order(List.of(monthly 
+                            ? NamedValue.of("_key", SortOrder.Asc) 
+                            : NamedValue.of(METRIC_AGG, SortOrder.Desc)))
+                    )
+                    .aggregations(METRIC_AGG, m -> m.sum(sum -> sum.field(spec.metricField())))
+                    .aggregations(SUMMARY_SALES_AGG, m -> m.sum(sum -> sum.field("ventas")))
+                )
+            ));
+        }
+        
+        if (aggregations.isEmpty() && coverageKnown) {
+            return new DashboardSnapshot(results);
+        }
+        aggregations.put(SUMMARY_COVERAGE_AGG, Aggregation.of(a -> a
+            .filter(f -> f.term(t -> t.field("dimension").value(SalesSummary.MONTH_DIMENSION)))
+            .aggregations(SUMMARY_SALES_AGG, m -> m.sum(sum -> sum.field("ventas")))
+        ));
+        
+        SearchResponse<Void> response;
+        try {
+            response = ElasticConnection.await(connection.connectAsync().search(s -> s
+                .index(summaryIndex)
+                .size(0)
+                .requestCache(true)
+                .aggregations(aggregations)
+            , Void.class));
+        } catch (ElasticsearchException e) {
+            if (isNotFound(e)) {
+                metadataCache.markMissing(summaryIndex);
+                return null;
+            }
+            throw e;
+        }
+        
+        long covered = (long) metricValue(response.aggregations().get(SUMMARY_COVERAGE_AGG)
+            .filter().aggregations().get(SUMMARY_SALES_AGG));
+        summaryCoverage.put(summaryIndex, new SummaryCoverage(generation, covered));
+        if (covered != salesCount) {
+            Log.warn("⚠️ El índice resumen '" + summaryIndex + "' cubre " + covered + " de " + salesCount 
+                + " ventas; el dashboard se calcula sobre el índice de ventas");
+            return null;
+        }
+        
+        for (AggregationSpec spec : specs) {
+            Aggregate filter = response.aggregations().get(spec.name());
+            if (filter == null || !filter.isFilter()) continue;
+            List<AggregationBucket> buckets = readSummaryBuckets(filter.filter().aggregations().get(SUMMARY_GROUPS_AGG));
+            results.put(spec.name(), List.copyOf(buckets));
+            aggregationCache.put(new AggregationCache.Key(summaryIndex, generation, spec, null, null), buckets);
+        }
+        
+        Log.info("🧮 Snapshot leído del índice resumen '" + summaryIndex + "'");
+        return new DashboardSnapshot(results);
+    }
+
+    /**
+     * Construye la agregación del cluster para una especificación
+     */
+    private Aggregation buildAggregation(AggregationSpec spec, TypeMapping mapping) {
+        if (spec.kind() == AggregationSpec.Kind.PERCENTILES) {
+            return percentilesAggregation(mapping, spec);
+        }
+        
+        Aggregation metric = spec.kind() == AggregationSpec.Kind.TERMS_CARDINALITY
+            ? cardinalityAggregation(mapping, spec)
+            : sumAggregation(mapping, spec.metricField());
+        
+        if (spec.kind() == AggregationSpec.Kind.MONTHLY_SUM) {
+            if (!isDateField(mapping, spec.groupField())) {
+                throw new IllegalStateException("El campo '" + spec.groupField() + "' no está mapeado como fecha");
+            }
+            return Aggregation.of(a -> a
+                .dateHistogram(h -> h
+                    .field(spec.groupField())
+                    .calendarInterval(CalendarInterval.Month)
+                    .timeZone(spec.timeZone())
+                    .format("yyyy-MM")
+                )
+                .aggregations(METRIC_AGG, metric)
+            );
+        }
+        
+        String groupField = keywordField(mapping, spec.groupField());
+        return Aggregation.of(a -> a
+            .terms(t -> t
+                .field(groupField)
+                .size(spec.size())
+                .order(List.of(NamedValue.of(METRIC_AGG, SortOrder.Desc)))
+            )
+            .aggregations(METRIC_AGG, metric)
+        );
+    }
+
+    /**
+     * Suma de un campo: directa si es numérico o con script si el índice lo guardó como texto
+     * (índices creados con mapping dinámico antes de createSalesIndexIfMissing)
+     */
+    private Aggregation sumAggregation(TypeMapping mapping, String field) {
+        if (isNumericField(mapping, field)) {
+            return Aggregation.of(a -> a.sum(s -> s.field(field)));
+        }
+        return Aggregation.of(a -> a.sum(s -> s.script(parseNumberScript(mapping, field))));
+    }
+
+    /**
+     * Conteo aproximado de valores distintos (HyperLogLog++): la memoria por grupo es constante
+     * y la acota precision_threshold, sin importar cuántos documentos tenga el índice
+     */
+    private Aggregation cardinalityAggregation(TypeMapping mapping, AggregationSpec spec) {
+        String field = keywordField(mapping, spec.metricField());
+        return Aggregation.of(a -> a.cardinality(c -> c
+            .field(field)
+            .precisionThreshold(spec.precisionThreshold())
+        ));
+    }
+
+    /**
+     * Percentiles aproximados con TDigest (compresión por defecto del cluster)
+     */
+    private Aggregation percentilesAggregation(TypeMapping mapping, AggregationSpec spec) {
+        String field = spec.metricField();
+        boolean numeric = isNumericField(mapping, field);
+        return Aggregation.of(a -> a.percentiles(p -> {
+            p.percents(spec.percents()).keyed(false).tdigest(t -> t);
+            return numeric ? p.field(field) : p.script(parseNumberScript(mapping, field));
+        }));
+    }
+
+    /**
+     * Script que convierte a número un campo guardado como texto
+     * (índices creados con mapping dinámico antes de createSalesIndexIfMissing)
+     */
+    private Script parseNumberScript(TypeMapping mapping, String field) {
+        String keyword = keywordField(mapping, field);
+        return Script.of(sc -> sc.inline(i -> i
+            .source("def v = doc[params.campo]; return v.size() == 0 ? 0 : Double.parseDouble(v.value);")
+            .params("campo", JsonData.of(keyword))
+        ));
+    }
+
+    /**
+     * Grupos del índice resumen: el número de ventas sale de la suma de "ventas" (cada
+     * documento resumen agrupa las ventas de un mes), no del número de documentos
+     */
+    private List<AggregationBucket> readSummaryBuckets(Aggregate aggregate) {
+        List<AggregationBucket> buckets = new ArrayList<>();
+        if (aggregate == null || !aggregate.isSterms()) return buckets;
+        
+        for (StringTermsBucket bucket : aggregate.sterms().buckets().array()) {
+            buckets.add(new AggregationBucket(bucket.key().stringValue(), 
+                (long) metricValue(bucket.aggregations().get(SUMMARY_SALES_AGG)), 
+                metricValue(bucket.aggregations().get(METRIC_AGG))));
+        }
+        return buckets;
+    }
+
+    /**
+     * Convierte los buckets de la respuesta en grupos del dashboard
+     */
+    private List<AggregationBucket> readBuckets(Aggregate aggregate) {
+        List<AggregationBucket> buckets = new ArrayList<>();
+        if (aggregate == null) return buckets;
+        
+        if (aggregate.isSterms()) {
+            for (StringTermsBucket bucket : aggregate.sterms().buckets().array()) {
+                buckets.add(new AggregationBucket(bucket.key().stringValue(), bucket.docCount(), 
+                    metricValue(bucket.aggregations().get(METRIC_AGG))));
+            }
+        } else if (aggregate.isDateHistogram()) {
+            for (DateHistogramBucket bucket : aggregate.dateHistogram().buckets().array()) {
+                buckets.add(new AggregationBucket(bucket.keyAsString(), bucket.docCount(), 
+                    metricValue(bucket.aggregations().get(METRIC_AGG))));
+            }
+        } else if (aggregate.isLterms()) {
+            aggregate.lterms().buckets().array().forEach(bucket -> 
+                buckets.add(new AggregationBucket(String.valueOf(bucket.key()), bucket.docCount(), 
+                    metricValue(bucket.aggregations().get(METRIC_AGG))))
+            );
+        } else if (aggregate.isTdigestPercentiles()) {
+            // Un grupo por percentil: "p50", "p95", ... (NaN si no hay documentos)
+            for (ArrayPercentilesItem item : aggregate.tdigestPercentiles().values().array()) {
+                double value = Double.isNaN(item.value()) ? 0.0 : item.value();
+                buckets.add(new AggregationBucket(percentileLabel(item.key()), 0, value));
+            }
+        }
+        
+        return buckets;
+    }
+
+    /**
+     * Valor de la sub-agregación de métrica (0 si no hay valor)
+     */
+    private double metricValue(Aggregate metric) {
+        if (metric == null) return 0.0;
+        if (metric.isSum()) return metric.sum().value();
+        if (metric.isCardinality()) return metric.cardinality().value();
+        return 0.0;
+    }
+
+    /**
+     * Etiqueta de un percentil a partir de su clave en la respuesta ("95.0" → "p95")
+     */
+    private String percentileLabel(String key) {
+        try {
+            double percent = Double.parseDouble(key);
+            return percent == Math.rint(percent) ? "p" + (long) percent : "p" + percent;
+        } catch (NumberFormatException e) {
+            return "p" + key;
+        }
+    }
+
+    /**
+     * Obtiene el mapping de un índice (o alias) usando la caché de metadatos
+     */
+    private TypeMapping getMapping(String indexName) throws IOException {
+        var cached = metadataCache.mapping(indexName);
+        if (cached.isPresent()) {
+            return cached.get();
+        }
+        
+        var response = ElasticConnection.await(
+            connection.connectAsync().indices().getMapping(g -> g.index(indexName)));
+        // Con un alias la respuesta viene con el nombre del índice real
+        TypeMapping mapping = response.result().values().stream()
+            .findFirst()
+            .map(record -> record.mappings())
+            .orElse(null);
+        if (mapping != null) {
+            metadataCache.putMapping(indexName, mapping);
+        }
+        return mapping;
+    }
+
+    /**
+     * Nombre del campo keyword para agrupar: el propio campo si es keyword,
+     * o su subcampo ".keyword" si es texto (el caso del mapping dinámico)
+     */
+    private String keywordField(TypeMapping mapping, String field) {
+        Property property = mapping != null ? mapping.properties().get(field) : null;
+        if (property == null) return field + ".keyword";
+        if (property.isText() && property.text().fields().containsKey("keyword")) {
+            return field + ".keyword";
+        }
+        return field;
+    }
+
+    /**
+     * Indica si el campo está mapeado como fecha
+     */
+    private boolean isDateField(TypeMapping mapping, String field) {
+        Property property = mapping != null ? mapping.properties().get(field) : null;
+        return property != null && (property.isDate() || property.isDateNanos());
+    }
+
+    /**
+     * Indica si el campo está mapeado con un tipo numérico
+     */
+    private boolean isNumericField(TypeMapping mapping, String field) {
+        Property property = mapping != null ? mapping.properties().get(field) : null;
+        return property != null && NUMERIC_KINDS.contains(property._kind());
+    }
 }
\ No newline at end of file
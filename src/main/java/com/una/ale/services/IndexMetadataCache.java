@@ -0,0 +1,140 @@
+package com.una.ale.services;
+
+import co.elastic.clients.elasticsearch._types.mapping.TypeMapping;
+
+import java.time.Duration;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Caché de corta duración con metadatos de índices (existencia, aliases, mapping y conteo).
+ * Evita repetir las consultas exists/get/count en cada selección de la interfaz.
+ * Las escrituras propias del servicio invalidan la entrada del índice afectado
+ * y avanzan su generación, que sirve de clave para cachés de resultados derivados.
+ */
+class IndexMetadataCache {
+
+    static final Duration DEFAULT_TTL = Duration.ofSeconds(10);
+
+    /**
+     * Valor cacheado con el instante (System.nanoTime) en que se obtuvo
+     */
+    private record Cached<T>(T value, long loadedAt) {
+    }
+
+    /**
+     * Metadatos conocidos de un índice; cada atributo expira por separado
+     */
+    private record Entry(
+            Cached<Boolean> exists,
+            Cached<Set<String>> aliases,
+            Cached<TypeMapping> mapping,
+            Cached<Long> docCount) {
+
+        static final Entry EMPTY = new Entry(null, null, null, null);
+    }
+
+    private final ConcurrentHashMap<String, Entry> entries = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String, AtomicLong> generations = new ConcurrentHashMap<>();
+    private final long ttlNanos;
+
+    IndexMetadataCache() {
+        this(DEFAULT_TTL);
+    }
+
+    IndexMetadataCache(Duration ttl) {
+        this.ttlNanos = ttl.toNanos();
+    }
+
+    Optional<Boolean> exists(String indexName) {
+        return fresh(entry(indexName).exists());
+    }
+
+    Optional<Set<String>> aliases(String indexName) {
+        return fresh(entry(indexName).aliases());
+    }
+
+    Optional<TypeMapping> mapping(String indexName) {
+        return fresh(entry(indexName).mapping());
+    }
+
+    Optional<Long> docCount(String indexName) {
+        return fresh(entry(indexName).docCount());
+    }
+
+    /**
+     * Registra aliases y mapping de un índice (implica que existe)
+     */
+    void putIndex(String indexName, Set<String> aliases, TypeMapping mapping) {
+        long now = System.nanoTime();
+        entries.compute(indexName, (name, current) -> {
+            Entry base = current != null ? current : Entry.EMPTY;
+            return new Entry(new Cached<>(true, now), new Cached<>(aliases, now),
+                    mapping != null ? new Cached<>(mapping, now) : base.mapping(), base.docCount());
+        });
+    }
+
+    /**
+     * Registra el mapping de un índice (implica que existe)
+     */
+    void putMapping(String indexName, TypeMapping mapping) {
+        long now = System.nanoTime();
+        entries.compute(indexName, (name, current) -> {
+            Entry base = current != null ? current : Entry.EMPTY;
+            return new Entry(new Cached<>(true, now), base.aliases(), new Cached<>(mapping, now), base.docCount());
+        });
+    }
+
+    /**
+     * Registra el conteo de documentos de un índice (implica que existe)
+     */
+    void putDocCount(String indexName, long count) {
+        long now = System.nanoTime();
+        entries.compute(indexName, (name, current) -> {
+            Entry base = current != null ? current : Entry.EMPTY;
+            return new Entry(new Cached<>(true, now), base.aliases(), base.mapping(), new Cached<>(count, now));
+        });
+    }
+
+    /**
+     * Registra que el índice no existe (respuesta 404 del cluster)
+     */
+    void markMissing(String indexName) {
+        nextGeneration(indexName);
+        long now = System.nanoTime();
+        entries.put(indexName, new Entry(new Cached<>(false, now), null, null, new Cached<>(0L, now)));
+    }
+
+    /**
+     * Descarta los metadatos de un índice tras una escritura propia
+     */
+    void invalidate(String indexName) {
+        nextGeneration(indexName);
+        entries.remove(indexName);
+    }
+
+    /**
+     * Generación actual del índice: cambia cada vez que sus datos se invalidan
+     */
+    long generation(String indexName) {
+        AtomicLong generation = generations.get(indexName);
+        return generation != null ? generation.get() : 0L;
+    }
+
+    private void nextGeneration(String indexName) {
+        generations.computeIfAbsent(indexName, k -> new AtomicLong()).incrementAndGet();
+    }
+
+    private Entry entry(String indexName) {
+        return entries.getOrDefault(indexName, Entry.EMPTY);
+    }
+
+    private <T> Optional<T> fresh(Cached<T> cached) {
+        if (cached == null || System.nanoTime() - cached.loadedAt() > ttlNanos) {
+            return Optional.empty();
+        }
+        return Optional.of(cached.value());
+    }
+}
@@ -0,0 +1,208 @@
+package com.una.ale.services;
+
+import co.elastic.clients.elasticsearch.ElasticsearchAsyncClient;
+import co.elastic.clients.elasticsearch._types.ElasticsearchException;
+import co.elastic.clients.elasticsearch._types.FieldValue;
+import co.elastic.clients.elasticsearch._types.SortOrder;
+import co.elastic.clients.elasticsearch._types.query_dsl.Query;
+import co.elastic.clients.elasticsearch.core.SearchResponse;
+import co.elastic.clients.elasticsearch.core.search.Hit;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.function.Function;
+
+import com.una.ale.util.ElasticConnection;
+import com.una.ale.util.Log;
+
+/**
+ * Recorrido por páginas de los resultados de una consulta sobre un point in time (PIT),
+ * ordenados por _shard_doc y avanzando con search_after.
+ * Guarda el cursor (valores de orden) del inicio de cada página ya visitada, así volver a una
+ * página es una sola consulta; saltar hacia adelante avanza en consultas grandes sin _source.
+ * Cerrar el recorrido libera el PIT en el cluster.
+ *
+ * @param <T> Tipo del documento leído del _source
+ * @param <R> Tipo de cada fila entregada
+ */
+public class PagedSearch<T, R> implements AutoCloseable {
+
+    // Tiempo que el cluster mantiene el PIT entre consultas (se renueva en cada una)
+    private static final String KEEP_ALIVE = "5m";
+
+    // Máximo de resultados por consulta al saltar páginas (index.max_result_window por defecto)
+    private static final int SKIP_BATCH = 10_000;
+
+    private final ElasticConnection connection;
+    private final String indexName;
+    private final Query query;
+    private final Class<T> documentClass;
+    private final Function<Hit<T>, R> mapper;
+    private final int pageSize;
+
+    // Cursor de inicio de cada página visitada (página 0 = sin search_after)
+    private final TreeMap<Integer, List<FieldValue>> cursors = new TreeMap<>();
+    private String pitId;
+    private long total;
+
+    PagedSearch(ElasticConnection connection, String indexName, Query query, int pageSize,
+                Class<T> documentClass, Function<Hit<T>, R> mapper) {
+        this.connection = connection;
+        this.indexName = indexName;
+        this.query = query;
+        this.pageSize = pageSize;
+        this.documentClass = documentClass;
+        this.mapper = mapper;
+    }
+
+    /**
+     * Abre el PIT y cuenta los resultados (exacto y consistente con las páginas)
+     */
+    synchronized PagedSearch<T, R> open() throws IOException {
+        ElasticsearchAsyncClient client = connection.connectAsync();
+        pitId = ElasticConnection.await(
+            client.openPointInTime(o -> o.index(indexName).keepAlive(k -> k.time(KEEP_ALIVE)))).id();
+        cursors.clear();
+        cursors.put(0, List.of());
+
+        SearchResponse<Void> response;
+        try {
+            response = ElasticConnection.await(client.search(s -> s
+                .size(0)
+                .pit(p -> p.id(pitId).keepAlive(k -> k.time(KEEP_ALIVE)))
+                .trackTotalHits(t -> t.enabled(true))
+                .query(query)
+            , Void.class));
+        } catch (IOException | RuntimeException e) {
+            // Conteo fallido o cancelado: el PIT se libera sin esperar la respuesta
+            client.closePointInTime(c -> c.id(pitId));
+            pitId = null;
+            throw e;
+        }
+        updatePit(response.pitId());
+        total = response.hits().total() != null ? response.hits().total().value() : 0;
+        return this;
+    }
+
+    /**
+     * Número total de resultados
+     */
+    public synchronized long total() {
+        return total;
+    }
+
+    public int pageSize() {
+        return pageSize;
+    }
+
+    /**
+     * Lee una página de resultados
+     * @param pageIndex Número de página (desde 0)
+     * @return Filas de la página (vacía si está fuera del rango)
+     * @throws IOException si hay error en la consulta
+     */
+    public synchronized List<R> fetch(int pageIndex) throws IOException {
+        if (pitId == null) {
+            throw new IOException("El recorrido del índice '" + indexName + "' está cerrado");
+        }
+        if ((long) pageIndex * pageSize >= total) {
+            return List.of();
+        }
+
+        try {
+            return fetchPage(pageIndex);
+        } catch (ElasticsearchException e) {
+            if (e.status() != 404) throw e;
+            // El PIT expiró (sin consultas durante KEEP_ALIVE): se abre uno nuevo y se reintenta
+            Log.info("🔄 PIT de '" + indexName + "' expirado, reabriendo...");
+            open();
+            return fetchPage(pageIndex);
+        }
+    }
+
+    /**
+     * Libera el PIT en el cluster
+     */
+    @Override
+    public synchronized void close() {
+        if (pitId == null) return;
+        String id = pitId;
+        pitId = null;
+        cursors.clear();
+        try {
+            connection.connect().closePointInTime(c -> c.id(id));
+        } catch (IOException | ElasticsearchException e) {
+            Log.warn("⚠️ No se pudo cerrar el PIT de '" + indexName + "': " + e.getMessage());
+        }
+    }
+
+    private List<R> fetchPage(int pageIndex) throws IOException {
+        List<FieldValue> after = cursorFor(pageIndex);
+        SearchResponse<T> response = search(pageSize, after, true);
+
+        List<Hit<T>> hits = response.hits().hits();
+        List<R> rows = new ArrayList<>(hits.size());
+        for (Hit<T> hit : hits) {
+            rows.add(mapper.apply(hit));
+        }
+        if (hits.size() == pageSize) {
+            cursors.put(pageIndex + 1, hits.get(hits.size() - 1).sort());
+        }
+        return rows;
+    }
+
+    /**
+     * Cursor de inicio de la página: el conocido o, si no, avanzando desde la página
+     * conocida más cercana con consultas sin _source que registran los cursores intermedios
+     */
+    private List<FieldValue> cursorFor(int pageIndex) throws IOException {
+        Map.Entry<Integer, List<FieldValue>> known = cursors.floorEntry(pageIndex);
+        int page = known.getKey();
+        List<FieldValue> after = known.getValue();
+
+        while (page < pageIndex) {
+            int batch = Math.max(pageSize, SKIP_BATCH - SKIP_BATCH % pageSize);
+            int rows = (int) Math.min((long) (pageIndex - page) * pageSize, batch);
+            SearchResponse<T> response = search(rows, after, false);
+            List<Hit<T>> hits = response.hits().hits();
+            if (hits.isEmpty()) break;
+
+            for (int i = pageSize - 1; i < hits.size(); i += pageSize) {
+                cursors.put(page + (i + 1) / pageSize, hits.get(i).sort());
+            }
+            page += hits.size() / pageSize;
+            after = hits.get(hits.size() - 1).sort();
+            if (hits.size() < rows) break;
+        }
+        return after;
+    }
+
+    private SearchResponse<T> search(int size, List<FieldValue> after, boolean withSource) throws IOException {
+        SearchResponse<T> response = ElasticConnection.await(connection.connectAsync().search(s -> {
+            s.size(size)
+             .pit(p -> p.id(pitId).keepAlive(k -> k.time(KEEP_ALIVE)))
+             .trackTotalHits(t -> t.enabled(false))
+             .query(query)
+             .sort(so -> so.field(f -> f.field("_shard_doc").order(SortOrder.Asc)));
+            if (!after.isEmpty()) {
+                s.searchAfter(after);
+            }
+            if (!withSource) {
+                s.source(src -> src.fetch(false));
+            }
+            return s;
+        }, documentClass));
+        updatePit(response.pitId());
+        return response;
+    }
+
+    private void updatePit(String id) {
+        // El cluster puede devolver un id de PIT actualizado en cada respuesta
+        if (id != null) {
+            pitId = id;
+        }
+    }
+}
@@ -0,0 +1,112 @@
+package com.una.ale.services;
+
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.una.ale.models.VentaDeserializer;
+
+/**
+ * Acumula los totales de una carga de ventas por (dimensión, valor, mes).
+ * Cada combinación se convierte en un documento del índice resumen, de modo que
+ * los gráficos leen unos cientos de documentos en lugar de agregar todas las filas.
+ */
+class SalesSummary {
+
+    /** Dimensiones por las que se agrupan los totales */
+    static final List<String> DIMENSIONS = List.of("producto", "provincia", "cliente");
+
+    /** Dimensión con un documento por mes (valor = yyyy-MM) */
+    static final String MONTH_DIMENSION = "mes";
+
+    static final String NO_MONTH = "sin_fecha";
+
+    /**
+     * Totales acumulados de una combinación (dimensión, valor, mes)
+     */
+    static final class Totals {
+        final String dimension;
+        final String valor;
+        final String mes;
+        double total;
+        double cantidad;
+        long ventas;
+
+        Totals(String dimension, String valor, String mes) {
+            this.dimension = dimension;
+            this.valor = valor;
+            this.mes = mes;
+        }
+
+        /**
+         * ID estable del documento resumen: las cargas siguientes actualizan el mismo documento
+         */
+        String documentId() {
+            return dimension + "|" + valor + "|" + mes;
+        }
+
+        Map<String, Object> toDocument() {
+            Map<String, Object> document = new HashMap<>();
+            document.put("dimension", dimension);
+            document.put("valor", valor);
+            document.put("mes", mes);
+            document.put("total", total);
+            document.put("cantidad", cantidad);
+            document.put("ventas", ventas);
+            return document;
+        }
+    }
+
+    private final Map<String, Totals> totals = new LinkedHashMap<>();
+
+    /**
+     * Suma una venta (documento tal como se indexó) a todas sus combinaciones
+     */
+    void add(Map<String, Object> document) {
+        double total = parseNumber(document.get("total"));
+        double cantidad = parseNumber(document.get("cantidad"));
+        String mes = month(document.get("fecha"));
+
+        accumulate(MONTH_DIMENSION, mes, mes, total, cantidad);
+        for (String dimension : DIMENSIONS) {
+            Object valor = document.get(dimension);
+            if (valor != null && !valor.toString().isBlank()) {
+                accumulate(dimension, valor.toString(), mes, total, cantidad);
+            }
+        }
+    }
+
+    boolean isEmpty() {
+        return totals.isEmpty();
+    }
+
+    List<Totals> totals() {
+        return new ArrayList<>(totals.values());
+    }
+
+    private void accumulate(String dimension, String valor, String mes, double total, double cantidad) {
+        Totals entry = totals.computeIfAbsent(dimension + "|" + valor + "|" + mes,
+                k -> new Totals(dimension, valor, mes));
+        entry.total += total;
+        entry.cantidad += cantidad;
+        entry.ventas++;
+    }
+
+    private static String month(Object fecha) {
+        LocalDate date = fecha != null ? VentaDeserializer.parseFecha(fecha.toString()) : null;
+        return date != null ? YearMonth.from(date).toString() : NO_MONTH;
+    }
+
+    private static double parseNumber(Object value) {
+        if (value == null) return 0.0;
+        try {
+            return Double.parseDouble(value.toString().trim());
+        } catch (NumberFormatException e) {
+            return 0.0;
+        }
+    }
+}
@@ -0,0 +1,182 @@
+package com.una.ale.services;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import com.una.ale.models.AggregationBucket;
+import com.una.ale.models.DashboardSnapshot;
+import com.una.ale.models.Venta;
+import com.una.ale.models.ViewSnapshot;
+import com.una.ale.util.Log;
+
+/**
+ * Guarda en disco la última vista del dashboard de cada índice (primera página y grupos
+ * de los gráficos) en un archivo binario compacto, un archivo por índice.
+ * Al arrancar se muestra de inmediato, antes de que responda el cluster; la generación
+ * guardada permite saber después si sigue vigente.
+ */
+public class ViewSnapshotStore {
+
+    // Encabezado del archivo: identifica el formato y su versión
+    private static final int MAGIC = 0x56534E50; // "VSNP"
+    private static final int VERSION = 1;
+
+    private final Path directory;
+
+    /**
+     * Usa el directorio de la aplicación en la carpeta del usuario
+     */
+    public ViewSnapshotStore() {
+        this(Path.of(System.getProperty("user.home"), ".una-ale", "snapshots"));
+    }
+
+    /**
+     * @param directory Directorio donde se guardan las vistas
+     */
+    public ViewSnapshotStore(Path directory) {
+        this.directory = directory;
+    }
+
+    /**
+     * Lee la vista guardada de un índice
+     * @param indexName Nombre del índice
+     * @return Vista guardada o vacío si no hay una (o el archivo no es válido)
+     */
+    public Optional<ViewSnapshot> load(String indexName) {
+        Path file = fileFor(indexName);
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+            if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+                Log.warn("⚠️ Vista guardada de '" + indexName + "' con formato desconocido, se ignora");
+                return Optional.empty();
+            }
+            return Optional.of(read(in));
+        } catch (NoSuchFileException e) {
+            return Optional.empty();
+        } catch (IOException | RuntimeException e) {
+            Log.warn("⚠️ No se pudo leer la vista guardada de '" + indexName + "': " + e.getMessage());
+            return Optional.empty();
+        }
+    }
+
+    /**
+     * Guarda la vista de un índice (reemplaza la anterior de forma atómica)
+     * @param indexName Nombre del índice
+     * @param snapshot Vista a guardar
+     * @throws IOException si no se puede escribir el archivo
+     */
+    public void save(String indexName, ViewSnapshot snapshot) throws IOException {
+        Files.createDirectories(directory);
+        Path file = fileFor(indexName);
+        Path temp = Files.createTempFile(directory, indexName, ".tmp");
+        try {
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temp)))) {
+                out.writeInt(MAGIC);
+                out.writeInt(VERSION);
+                write(out, snapshot);
+            }
+            try {
+                Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    /**
+     * Borra la vista guardada de un índice (ej. al eliminarlo)
+     */
+    public void delete(String indexName) throws IOException {
+        Files.deleteIfExists(fileFor(indexName));
+    }
+
+    private Path fileFor(String indexName) {
+        return directory.resolve(indexName + ".bin");
+    }
+
+    private void write(DataOutputStream out, ViewSnapshot snapshot) throws IOException {
+        out.writeUTF(snapshot.generation());
+        out.writeLong(snapshot.savedAt());
+        out.writeLong(snapshot.total());
+
+        out.writeInt(snapshot.firstPage().size());
+        for (Venta venta : snapshot.firstPage()) {
+            writeString(out, venta.docId());
+            writeString(out, venta.id());
+            out.writeLong(venta.fecha() != null ? venta.fecha().toEpochDay() : Long.MIN_VALUE);
+            writeString(out, venta.cliente());
+            writeString(out, venta.producto());
+            out.writeInt(venta.cantidad());
+            out.writeDouble(venta.precioUnitario());
+            out.writeDouble(venta.total());
+            writeString(out, venta.provincia());
+        }
+
+        Map<String, List<AggregationBucket>> buckets = snapshot.dashboard().buckets();
+        out.writeInt(buckets.size());
+        for (Map.Entry<String, List<AggregationBucket>> entry : buckets.entrySet()) {
+            out.writeUTF(entry.getKey());
+            out.writeInt(entry.getValue().size());
+            for (AggregationBucket bucket : entry.getValue()) {
+                writeString(out, bucket.key());
+                out.writeLong(bucket.docCount());
+                out.writeDouble(bucket.value());
+            }
+        }
+    }
+
+    private ViewSnapshot read(DataInputStream in) throws IOException {
+        String generation = in.readUTF();
+        long savedAt = in.readLong();
+        long total = in.readLong();
+
+        int rowCount = in.readInt();
+        List<Venta> firstPage = new ArrayList<>(rowCount);
+        for (int i = 0; i < rowCount; i++) {
+            String docId = readString(in);
+            String id = readString(in);
+            long epochDay = in.readLong();
+            firstPage.add(new Venta(docId, id,
+                epochDay != Long.MIN_VALUE ? LocalDate.ofEpochDay(epochDay) : null,
+                readString(in), readString(in), in.readInt(), in.readDouble(), in.readDouble(),
+                readString(in)));
+        }
+
+        int aggregationCount = in.readInt();
+        Map<String, List<AggregationBucket>> buckets = new LinkedHashMap<>();
+        for (int i = 0; i < aggregationCount; i++) {
+            String name = in.readUTF();
+            int bucketCount = in.readInt();
+            List<AggregationBucket> list = new ArrayList<>(bucketCount);
+            for (int j = 0; j < bucketCount; j++) {
+                list.add(new AggregationBucket(readString(in), in.readLong(), in.readDouble()));
+            }
+            buckets.put(name, List.copyOf(list));
+        }
+        return new ViewSnapshot(generation, savedAt, total, firstPage, new DashboardSnapshot(buckets));
+    }
+
+    private void writeString(DataOutputStream out, String value) throws IOException {
+        out.writeBoolean(value != null);
+        if (value != null) out.writeUTF(value);
+    }
+
+    private String readString(DataInputStream in) throws IOException {
+        return in.readBoolean() ? in.readUTF() : null;
+    }
+}
@@ -0,0 +1,288 @@
+package com.una.ale.util;
+
+import java.util.List;
+import java.util.function.Function;
+
+import com.una.ale.models.AggregationBucket;
+
+import javafx.geometry.Orientation;
+import javafx.geometry.VPos;
+import javafx.scene.canvas.Canvas;
+import javafx.scene.canvas.GraphicsContext;
+import javafx.scene.control.ScrollBar;
+import javafx.scene.control.Tooltip;
+import javafx.scene.input.MouseEvent;
+import javafx.scene.input.ScrollEvent;
+import javafx.scene.layout.Region;
+import javafx.scene.paint.Color;
+import javafx.scene.text.Font;
+import javafx.scene.text.FontWeight;
+import javafx.scene.text.TextAlignment;
+import javafx.util.Duration;
+
+/**
+ * Gráfico de barras dibujado sobre un Canvas, para miles de grupos.
+ * No crea un nodo por barra: solo se dibujan las barras visibles y la barra bajo el
+ * cursor se obtiene calculando su posición (el tooltip se reutiliza). Si las barras no
+ * caben en el ancho disponible aparece una barra de desplazamiento horizontal (también
+ * se desplaza con la rueda del mouse).
+ */
+public final class CanvasBarChart extends Region {
+
+    // Geometría en píxeles
+    private static final double BAR_WIDTH = 18;
+    private static final double BAR_GAP = 6;
+    private static final double SLOT = BAR_WIDTH + BAR_GAP;
+    private static final double TITLE_HEIGHT = 30;
+    private static final double Y_AXIS_WIDTH = 80;
+    private static final double X_LABELS_HEIGHT = 70;
+    private static final double RIGHT_PADDING = 10;
+    private static final int Y_TICKS = 5;
+
+    private static final Color BAR_COLOR = Color.web("#3498db");
+    private static final Color BAR_HOVER_COLOR = Color.web("#e67e22");
+    private static final Color AXIS_COLOR = Color.web("#7f8c8d");
+    private static final Color GRID_COLOR = Color.web("#ecf0f1");
+    private static final Color TEXT_COLOR = Color.web("#2c3e50");
+
+    private final Canvas canvas = new Canvas();
+    private final ScrollBar scrollBar = new ScrollBar();
+    private final Tooltip tooltip = new Tooltip();
+
+    private String title = "";
+    private String xLabel = "";
+    private String yLabel = "";
+    private List<AggregationBucket> buckets = List.of();
+    private double maxValue = 0;
+    private int hoverIndex = -1;
+    private Function<Double, String> valueFormat = value -> String.format("%,.0f", value);
+
+    public CanvasBarChart() {
+        scrollBar.setOrientation(Orientation.HORIZONTAL);
+        scrollBar.setVisible(false);
+        scrollBar.valueProperty().addListener((obs, oldVal, newVal) -> draw());
+        tooltip.setShowDelay(Duration.millis(50));
+        getChildren().addAll(canvas, scrollBar);
+
+        canvas.setOnMouseMoved(this::onMouseMoved);
+        canvas.setOnMouseExited(event -> setHover(-1, event));
+        setOnScroll(this::onScroll);
+    }
+
+    public void setTitle(String title) {
+        this.title = title != null ? title : "";
+        draw();
+    }
+
+    /**
+     * Etiquetas de los ejes
+     */
+    public void setAxisLabels(String xLabel, String yLabel) {
+        this.xLabel = xLabel != null ? xLabel : "";
+        this.yLabel = yLabel != null ? yLabel : "";
+        draw();
+    }
+
+    /**
+     * Formato de los valores en el eje y en el tooltip
+     */
+    public void setValueFormat(Function<Double, String> valueFormat) {
+        this.valueFormat = valueFormat;
+        draw();
+    }
+
+    /**
+     * Reemplaza las barras (en el orden en que se muestran) y vuelve al inicio
+     */
+    public void setData(List<AggregationBucket> buckets) {
+        this.buckets = List.copyOf(buckets);
+        this.maxValue = this.buckets.stream().mapToDouble(AggregationBucket::value).max().orElse(0);
+        this.hoverIndex = -1;
+        tooltip.hide();
+        scrollBar.setValue(0);
+        requestLayout();
+        draw();
+    }
+
+    @Override
+    protected void layoutChildren() {
+        double width = getWidth();
+        double height = getHeight();
+        double scrollHeight = scrollBar.prefHeight(-1);
+
+        double contentWidth = buckets.size() * SLOT;
+        double plotWidth = Math.max(0, width - Y_AXIS_WIDTH - RIGHT_PADDING);
+        boolean scrolls = contentWidth > plotWidth;
+        scrollBar.setVisible(scrolls);
+        if (scrolls) {
+            scrollBar.setMax(contentWidth - plotWidth);
+            scrollBar.setVisibleAmount(plotWidth * (contentWidth - plotWidth) / contentWidth);
+            scrollBar.setUnitIncrement(SLOT);
+            scrollBar.setBlockIncrement(plotWidth);
+            scrollBar.resizeRelocate(Y_AXIS_WIDTH, height - scrollHeight, plotWidth, scrollHeight);
+        } else {
+            scrollBar.setValue(0);
+        }
+
+        canvas.setWidth(width);
+        canvas.setHeight(Math.max(0, scrolls ? height - scrollHeight : height));
+        draw();
+    }
+
+    @Override
+    protected double computePrefWidth(double height) {
+        return 400;
+    }
+
+    @Override
+    protected double computePrefHeight(double width) {
+        return 300;
+    }
+
+    /**
+     * Dibuja solo las barras que caen en la parte visible
+     */
+    private void draw() {
+        GraphicsContext g = canvas.getGraphicsContext2D();
+        double width = canvas.getWidth();
+        double height = canvas.getHeight();
+        g.clearRect(0, 0, width, height);
+        if (width <= 0 || height <= 0) return;
+
+        double plotLeft = Y_AXIS_WIDTH;
+        double plotRight = width - RIGHT_PADDING;
+        double plotTop = TITLE_HEIGHT + 10;
+        double plotBottom = height - X_LABELS_HEIGHT;
+        double plotHeight = plotBottom - plotTop;
+
+        g.setFill(TEXT_COLOR);
+        g.setFont(Font.font(null, FontWeight.BOLD, 14));
+        g.setTextAlign(TextAlignment.CENTER);
+        g.setTextBaseline(VPos.CENTER);
+        g.fillText(title, width / 2, TITLE_HEIGHT / 2 + 4);
+        if (plotHeight <= 0 || plotRight <= plotLeft) return;
+
+        double scale = maxValue > 0 ? plotHeight / maxValue : 0;
+        drawValueAxis(g, plotLeft, plotRight, plotTop, plotBottom);
+
+        if (buckets.isEmpty()) {
+            g.setFill(AXIS_COLOR);
+            g.setFont(Font.font(12));
+            g.setTextAlign(TextAlignment.CENTER);
+            g.fillText("Sin datos", (plotLeft + plotRight) / 2, (plotTop + plotBottom) / 2);
+            return;
+        }
+
+        double offset = scrollBar.isVisible() ? scrollBar.getValue() : 0;
+        int first = Math.max(0, (int) Math.floor(offset / SLOT));
+        int last = Math.min(buckets.size() - 1, (int) Math.ceil((offset + plotRight - plotLeft) / SLOT));
+
+        g.setFont(Font.font(11));
+        g.save();
+        g.beginPath();
+        g.rect(plotLeft, 0, plotRight - plotLeft, height);
+        g.clip();
+        for (int i = first; i <= last; i++) {
+            AggregationBucket bucket = buckets.get(i);
+            double x = plotLeft + i * SLOT - offset + BAR_GAP / 2;
+            double barHeight = Math.max(0, bucket.value() * scale);
+            g.setFill(i == hoverIndex ? BAR_HOVER_COLOR : BAR_COLOR);
+            g.fillRect(x, plotBottom - barHeight, BAR_WIDTH, barHeight);
+            drawCategoryLabel(g, bucket.key(), x + BAR_WIDTH / 2, plotBottom + 4);
+        }
+        g.restore();
+
+        g.setStroke(AXIS_COLOR);
+        g.strokeLine(plotLeft, plotBottom, plotRight, plotBottom);
+    }
+
+    private void drawValueAxis(GraphicsContext g, double plotLeft, double plotRight, double plotTop, double plotBottom) {
+        g.setFont(Font.font(10));
+        g.setTextAlign(TextAlignment.RIGHT);
+        g.setTextBaseline(VPos.CENTER);
+        for (int tick = 0; tick <= Y_TICKS; tick++) {
+            double y = plotBottom - (plotBottom - plotTop) * tick / Y_TICKS;
+            g.setStroke(GRID_COLOR);
+            g.strokeLine(plotLeft, y, plotRight, y);
+            g.setFill(AXIS_COLOR);
+            g.fillText(valueFormat.apply(maxValue * tick / Y_TICKS), plotLeft - 6, y);
+        }
+        g.setStroke(AXIS_COLOR);
+        g.strokeLine(plotLeft, plotTop, plotLeft, plotBottom);
+
+        // Títulos de los ejes
+        g.save();
+        g.setFill(TEXT_COLOR);
+        g.setFont(Font.font(11));
+        g.setTextAlign(TextAlignment.CENTER);
+        g.translate(12, (plotTop + plotBottom) / 2);
+        g.rotate(-90);
+        g.fillText(yLabel, 0, 0);
+        g.restore();
+        g.setFill(TEXT_COLOR);
+        g.setTextAlign(TextAlignment.CENTER);
+        g.fillText(xLabel, (plotLeft + plotRight) / 2, canvas.getHeight() - 8);
+    }
+
+    /**
+     * Etiqueta de una barra, inclinada y recortada para no invadir el título del eje
+     */
+    private void drawCategoryLabel(GraphicsContext g, String text, double x, double y) {
+        String label = text != null && text.length() > 14 ? text.substring(0, 13) + "…" : String.valueOf(text);
+        g.save();
+        g.translate(x, y);
+        g.rotate(-45);
+        g.setFill(TEXT_COLOR);
+        g.setTextAlign(TextAlignment.RIGHT);
+        g.setTextBaseline(VPos.CENTER);
+        g.fillText(label, 0, 0);
+        g.restore();
+    }
+
+    /**
+     * Barra bajo el cursor calculada a partir de la posición (sin nodos por barra)
+     */
+    private int barAt(double x, double y) {
+        double plotBottom = canvas.getHeight() - X_LABELS_HEIGHT;
+        if (x < Y_AXIS_WIDTH || x > canvas.getWidth() - RIGHT_PADDING || y > plotBottom) return -1;
+
+        double offset = scrollBar.isVisible() ? scrollBar.getValue() : 0;
+        double position = x - Y_AXIS_WIDTH + offset;
+        int index = (int) (position / SLOT);
+        double within = position - index * SLOT;
+        if (index < 0 || index >= buckets.size() || within < BAR_GAP / 2 || within > BAR_GAP / 2 + BAR_WIDTH) {
+            return -1;
+        }
+        return index;
+    }
+
+    private void onMouseMoved(MouseEvent event) {
+        setHover(barAt(event.getX(), event.getY()), event);
+    }
+
+    private void setHover(int index, MouseEvent event) {
+        if (index == hoverIndex) return;
+        hoverIndex = index;
+        draw();
+
+        if (index < 0) {
+            tooltip.hide();
+            return;
+        }
+        AggregationBucket bucket = buckets.get(index);
+        String text = bucket.key() + "\n" + valueFormat.apply(bucket.value());
+        if (bucket.docCount() > 0) {
+            text += "\n" + bucket.docCount() + " documentos";
+        }
+        tooltip.setText(text);
+        tooltip.show(canvas, event.getScreenX() + 12, event.getScreenY() + 12);
+    }
+
+    private void onScroll(ScrollEvent event) {
+        if (!scrollBar.isVisible()) return;
+        double delta = event.getDeltaX() != 0 ? event.getDeltaX() : event.getDeltaY();
+        double value = scrollBar.getValue() - delta;
+        scrollBar.setValue(Math.max(scrollBar.getMin(), Math.min(scrollBar.getMax(), value)));
+        event.consume();
+    }
+}
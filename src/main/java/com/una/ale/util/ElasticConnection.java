@@ -1,5 +1,6 @@
 package com.una.ale.util;
 
+import co.elastic.clients.elasticsearch.ElasticsearchAsyncClient;
 import co.elastic.clients.elasticsearch.ElasticsearchClient;
 import co.elastic.clients.json.jackson.JacksonJsonpMapper;
 import co.elastic.clients.transport.ElasticsearchTransport;
@@ -8,10 +9,14 @@ import org.apache.http.HttpHost;
 import org.elasticsearch.client.RestClient;
 
 import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
 
 public class ElasticConnection {
 
     private ElasticsearchClient client;
+    private ElasticsearchAsyncClient asyncClient;
     private ElasticsearchTransport transport;
     private RestClient restClient;
 
@@ -24,7 +29,7 @@ public class ElasticConnection {
      * @return ElasticsearchClient configurado
      * @throws IOException si hay problemas al conectar
      */
-    public ElasticsearchClient connect() throws IOException {
+    public synchronized ElasticsearchClient connect() throws IOException {
         if (client == null) {
             // Crear el cliente REST de bajo nivel
             restClient = RestClient.builder(
@@ -42,6 +47,43 @@ public class ElasticConnection {
         return client;
     }
 
+    /**
+     * Cliente asíncrono sobre la misma conexión: sus consultas se pueden cancelar
+     * (cancelar el futuro aborta la petición HTTP)
+     * @return ElasticsearchAsyncClient configurado
+     * @throws IOException si hay problemas al conectar
+     */
+    public synchronized ElasticsearchAsyncClient connectAsync() throws IOException {
+        connect();
+        if (asyncClient == null) {
+            asyncClient = new ElasticsearchAsyncClient(transport);
+        }
+        return asyncClient;
+    }
+
+    /**
+     * Espera la respuesta de una consulta asíncrona. Si el hilo se interrumpe mientras
+     * espera (tarea cancelada), cancela la petición HTTP en lugar de dejarla correr.
+     * @param request Consulta hecha con {@link #connectAsync()}
+     * @return Respuesta de la consulta
+     * @throws InterruptedIOException si la espera se interrumpió
+     * @throws IOException si la consulta falla
+     */
+    public static <T> T await(CompletableFuture<T> request) throws IOException {
+        try {
+            return request.get();
+        } catch (InterruptedException e) {
+            request.cancel(true);
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Consulta cancelada");
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof IOException io) throw io;
+            if (cause instanceof RuntimeException re) throw re;
+            throw new IOException(cause);
+        }
+    }
+
     /**
      * Obtiene el cliente de Elasticsearch (debe llamar connect() primero)
      * @return ElasticsearchClient o null si no está conectado
@@ -61,7 +103,7 @@ public class ElasticConnection {
     /**
      * Cierra la conexión y libera los recursos
      */
-    public void close() {
+    public synchronized void close() {
         try {
             if (transport != null) {
                 transport.close();
@@ -73,6 +115,7 @@ public class ElasticConnection {
             System.err.println("Error al cerrar la conexión: " + e.getMessage());
         } finally {
             client = null;
+            asyncClient = null;
             transport = null;
             restClient = null;
         }
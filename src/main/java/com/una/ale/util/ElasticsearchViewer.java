@@ -1,6 +1,10 @@
 package com.una.ale.util;
 
+import com.una.ale.models.AggregationBucket;
+import com.una.ale.models.IndexOverview;
 import com.una.ale.services.ElasticsearchService;
+import java.io.IOException;
+import java.nio.file.Path;
 import java.util.List;
 import java.util.Map;
 import java.util.Scanner;
@@ -45,12 +49,15 @@ public class ElasticsearchViewer {
         boolean continuar = true;
         
         while (continuar) {
+            Log.flush(); // Que la salida de la opción anterior aparezca antes del menú
             System.out.println("\n🔍 === ELASTICSEARCH VIEWER ===");
             System.out.println("1. Listar todos los índices");
             System.out.println("2. Ver contenido de un índice");
             System.out.println("3. Contar documentos en un índice");
             System.out.println("4. Información del cluster");
             System.out.println("5. Ver índice 'excel_ventas' (por defecto)");
+            System.out.println("6. Ranking completo de clientes por total");
+            System.out.println("7. Exportar totales por cliente a CSV");
             System.out.println("0. Salir");
             System.out.print("\nSelecciona una opción: ");
             
@@ -77,6 +84,16 @@ public class ElasticsearchViewer {
                     case 5:
                         verContenidoIndice("excel_ventas");
                         break;
+                    case 6:
+                        System.out.print("¿Cuántos clientes mostrar? ");
+                        int topN = Integer.parseInt(scanner.nextLine());
+                        mostrarRankingClientes("excel_ventas", topN);
+                        break;
+                    case 7:
+                        System.out.print("Archivo CSV de salida: ");
+                        String archivo = scanner.nextLine();
+                        exportarTotalesClientes("excel_ventas", archivo);
+                        break;
                     case 0:
                         continuar = false;
                         System.out.println("👋 ¡Hasta luego!");
@@ -98,15 +115,15 @@ public class ElasticsearchViewer {
      */
     private void listarIndices() {
         System.out.println("\n📋 === ÍNDICES DISPONIBLES ===");
-        List<String> indices = esService.listAllIndices();
+        List<IndexOverview> indices = esService.getIndicesOverview();
         
         if (indices.isEmpty()) {
             System.out.println("❌ No se encontraron índices");
         } else {
             for (int i = 0; i < indices.size(); i++) {
-                String indexName = indices.get(i);
-                long docCount = esService.countDocuments(indexName);
-                System.out.printf("%d. %s (%d documentos)%n", i + 1, indexName, docCount);
+                IndexOverview index = indices.get(i);
+                System.out.printf("%d. %s (%d documentos, %s, salud: %s, aliases: %s)%n", 
+                    i + 1, index.name(), index.docsCount(), index.storeSize(), index.health(), index.aliases());
             }
         }
     }
@@ -137,6 +154,35 @@ public class ElasticsearchViewer {
         }
     }
     
+    /**
+     * Muestra el ranking exacto de clientes por total vendido
+     */
+    private void mostrarRankingClientes(String indexName, int topN) {
+        System.out.println("\n🏆 === RANKING DE CLIENTES ===");
+        try {
+            List<AggregationBucket> ranking = esService.rankGroups(indexName, "cliente", "total", topN, null, null);
+            for (int i = 0; i < ranking.size(); i++) {
+                AggregationBucket bucket = ranking.get(i);
+                System.out.printf("%d. %s: ₡%.0f (%d ventas)%n", i + 1, bucket.key(), bucket.value(), bucket.docCount());
+            }
+        } catch (IOException e) {
+            System.err.println("❌ Error calculando ranking: " + e.getMessage());
+        }
+    }
+    
+    /**
+     * Exporta a CSV el total vendido de cada cliente
+     */
+    private void exportarTotalesClientes(String indexName, String archivo) {
+        System.out.println("\n💾 === EXPORTAR TOTALES POR CLIENTE ===");
+        try {
+            long filas = esService.exportGroupTotalsCsv(indexName, "cliente", "total", Path.of(archivo));
+            System.out.printf("✅ %d clientes exportados a %s%n", filas, archivo);
+        } catch (IOException e) {
+            System.err.println("❌ Error exportando: " + e.getMessage());
+        }
+    }
+    
     /**
      * Muestra información del cluster
      */
@@ -166,11 +212,11 @@ public class ElasticsearchViewer {
             
             // Listar índices
             System.out.println("\n📋 Índices disponibles:");
-            List<String> indices = viewer.esService.listAllIndices();
+            List<IndexOverview> overview = viewer.esService.getIndicesOverview();
+            List<String> indices = overview.stream().map(IndexOverview::name).toList();
             
-            for (String index : indices) {
-                long count = viewer.esService.countDocuments(index);
-                System.out.printf("  - %s: %d documentos%n", index, count);
+            for (IndexOverview index : overview) {
+                System.out.printf("  - %s: %d documentos (%s)%n", index.name(), index.docsCount(), index.storeSize());
             }
             
             // Mostrar contenido del índice principal si existe
@@ -0,0 +1,117 @@
+package com.una.ale.util;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.regex.Pattern;
+
+/**
+ * Índice invertido en memoria sobre filas ya cargadas: para cada campo, token → filas que
+ * lo contienen (BitSet por posición de fila). Permite filtrar sin consultar el cluster.
+ * Los textos se separan en tokens como el analizador estándar de Elasticsearch (minúsculas,
+ * cortando en lo que no es letra ni dígito) y los tokens de la consulta se combinan con OR,
+ * igual que match y query_string por defecto, así el resultado coincide con el del cluster.
+ * Se pueden agregar filas al final; no es seguro para uso concurrente.
+ *
+ * @param <T> Tipo de las filas
+ */
+public class InvertedIndex<T> {
+
+    // Caracteres con significado en la sintaxis de query_string: esas consultas van al cluster
+    private static final Pattern QUERY_SYNTAX = Pattern.compile("[+\\-=&|><!(){}\\[\\]^\"~*?:\\\\/]|\\b(AND|OR|NOT)\\b");
+    private static final Pattern TOKEN_SEPARATOR = Pattern.compile("[^\\p{L}\\p{N}]+");
+
+    private final Map<String, Function<T, String>> fields;
+    private final Map<String, Map<String, BitSet>> postings = new HashMap<>();
+    private final List<T> rows;
+
+    /**
+     * @param fields Campos indexados: nombre → valor de texto de cada fila
+     */
+    public InvertedIndex(Map<String, Function<T, String>> fields) {
+        this(fields, new ArrayList<>());
+    }
+
+    /**
+     * @param fields Campos indexados: nombre → valor de texto de cada fila
+     * @param storage Lista vacía donde se guardan las filas (ej. una lista por columnas)
+     */
+    public InvertedIndex(Map<String, Function<T, String>> fields, List<T> storage) {
+        this.rows = storage;
+        this.fields = new LinkedHashMap<>(fields);
+        for (String field : fields.keySet()) {
+            postings.put(field, new HashMap<>());
+        }
+    }
+
+    /**
+     * Agrega filas al índice (a continuación de las existentes)
+     */
+    public void addAll(List<T> newRows) {
+        for (T row : newRows) {
+            int position = rows.size();
+            rows.add(row);
+            for (Map.Entry<String, Function<T, String>> field : fields.entrySet()) {
+                Map<String, BitSet> tokens = postings.get(field.getKey());
+                for (String token : tokenize(field.getValue().apply(row))) {
+                    tokens.computeIfAbsent(token, t -> new BitSet()).set(position);
+                }
+            }
+        }
+    }
+
+    /**
+     * Número de filas indexadas
+     */
+    public int size() {
+        return rows.size();
+    }
+
+    /**
+     * Indica si la búsqueda se puede resolver localmente: el campo está indexado (null = todos)
+     * y la consulta es texto simple, sin sintaxis de query_string
+     */
+    public boolean supports(String field, String query) {
+        return (field == null || fields.containsKey(field))
+            && query != null && !QUERY_SYNTAX.matcher(query).find();
+    }
+
+    /**
+     * Filas con al menos un token de la consulta en el campo (null = en cualquier campo indexado)
+     * @return Filas en el orden en que se agregaron
+     */
+    public List<T> search(String field, String query) {
+        BitSet matches = new BitSet(rows.size());
+        for (String token : tokenize(query)) {
+            for (String name : field != null ? List.of(field) : fields.keySet()) {
+                BitSet positions = postings.get(name).get(token);
+                if (positions != null) {
+                    matches.or(positions);
+                }
+            }
+        }
+
+        List<T> result = new ArrayList<>(matches.cardinality());
+        for (int i = matches.nextSetBit(0); i >= 0; i = matches.nextSetBit(i + 1)) {
+            result.add(rows.get(i));
+        }
+        return result;
+    }
+
+    /**
+     * Separa un texto en tokens en minúsculas
+     */
+    static List<String> tokenize(String text) {
+        if (text == null || text.isBlank()) return List.of();
+        List<String> tokens = new ArrayList<>();
+        for (String token : TOKEN_SEPARATOR.split(text.toLowerCase(Locale.ROOT))) {
+            if (!token.isEmpty()) tokens.add(token);
+        }
+        return tokens;
+    }
+}
@@ -0,0 +1,96 @@
+package com.una.ale.util;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Executor de la aplicación para llamadas bloqueantes (HTTP a Elasticsearch, archivos).
+ * Usa un hilo virtual por tarea, así las consultas lentas no ocupan los hilos del
+ * ForkJoinPool común que usan los cálculos en paralelo. Si los hilos virtuales no están
+ * disponibles (o se desactivan con -Dapp.io.virtualThreads=false) usa un pool acotado
+ * de hilos de plataforma.
+ * Una vez detenido no se vuelve a crear: las tareas que lleguen tarde (ej. una página pedida
+ * por la tabla mientras la aplicación se cierra) se rechazan en vez de abrir nuevas consultas.
+ */
+public final class IoExecutor {
+
+    // Hilos del pool de respaldo
+    private static final int PLATFORM_THREADS = 16;
+
+    private static ExecutorService executor;
+    private static boolean stopped = false;
+
+    private IoExecutor() {
+    }
+
+    /**
+     * Executor compartido (se crea la primera vez que se pide)
+     * @throws RejectedExecutionException si ya se detuvo con shutdown()
+     */
+    public static synchronized ExecutorService get() {
+        if (stopped) {
+            throw new RejectedExecutionException("El executor de E/S está detenido");
+        }
+        if (executor == null) {
+            executor = create();
+        }
+        return executor;
+    }
+
+    /**
+     * Detiene el executor: espera brevemente a las tareas en curso y luego las interrumpe
+     */
+    public static void shutdown() {
+        ExecutorService current;
+        synchronized (IoExecutor.class) {
+            stopped = true;
+            current = executor;
+            executor = null;
+        }
+        if (current == null) return;
+
+        current.shutdown();
+        try {
+            if (!current.awaitTermination(2, TimeUnit.SECONDS)) {
+                current.shutdownNow();
+            }
+        } catch (InterruptedException e) {
+            current.shutdownNow();
+            Thread.currentThread().interrupt();
+        }
+        Log.info("🔒 Executor de E/S detenido");
+    }
+
+    private static ExecutorService create() {
+        if (Boolean.parseBoolean(System.getProperty("app.io.virtualThreads", "true"))) {
+            try {
+                return Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("es-io-", 0).factory());
+            } catch (UnsupportedOperationException e) {
+                Log.warn("⚠️ Hilos virtuales no disponibles, usando pool de " + PLATFORM_THREADS + " hilos");
+            }
+        }
+        return platformPool();
+    }
+
+    /**
+     * Pool acotado de hilos daemon (no impide que la aplicación termine)
+     */
+    private static ExecutorService platformPool() {
+        AtomicInteger counter = new AtomicInteger();
+        ThreadFactory factory = runnable -> {
+            Thread thread = new Thread(runnable, "es-io-" + counter.getAndIncrement());
+            thread.setDaemon(true);
+            return thread;
+        };
+        ThreadPoolExecutor pool = new ThreadPoolExecutor(PLATFORM_THREADS, PLATFORM_THREADS,
+                30, TimeUnit.SECONDS, new LinkedBlockingQueue<>(), factory);
+        pool.allowCoreThreadTimeOut(true);
+        return pool;
+    }
+}
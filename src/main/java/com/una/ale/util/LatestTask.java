@@ -0,0 +1,92 @@
+package com.una.ale.util;
+
+import java.io.InterruptedIOException;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Ejecuta en segundo plano una operación de la interfaz de la que solo interesa la última
+ * petición (cargar la tabla, buscar, etc.). Cada ejecución recibe un número de generación;
+ * al lanzar una nueva, la anterior se cancela: su hilo se interrumpe, lo que aborta la
+ * consulta HTTP en curso (ver {@link ElasticConnection#await}), y su resultado se descarta
+ * porque su token deja de ser el actual.
+ */
+public class LatestTask {
+
+    /**
+     * Token de una ejecución: permite saber si sigue siendo la última
+     */
+    public final class Token {
+
+        private final long generation;
+
+        private Token(long generation) {
+            this.generation = generation;
+        }
+
+        /**
+         * Indica si ninguna ejecución posterior reemplazó a esta
+         */
+        public boolean isCurrent() {
+            return generation == LatestTask.this.generation.get();
+        }
+    }
+
+    /**
+     * Trabajo a ejecutar con su token
+     */
+    @FunctionalInterface
+    public interface Task {
+        void run(Token token) throws Exception;
+    }
+
+    private final String name;
+    private final AtomicLong generation = new AtomicLong();
+    private Future<?> running;
+
+    /**
+     * @param name Nombre de la operación (para los mensajes)
+     */
+    public LatestTask(String name) {
+        this.name = name;
+    }
+
+    /**
+     * Lanza la tarea y cancela la anterior si aún está en curso
+     * @param task Trabajo; debe comprobar {@link Token#isCurrent()} antes de publicar resultados
+     * @return Token de esta ejecución
+     */
+    public synchronized Token run(Task task) {
+        Token token = new Token(generation.incrementAndGet());
+        cancelRunning();
+        running = IoExecutor.get().submit(() -> {
+            try {
+                task.run(token);
+            } catch (InterruptedException | InterruptedIOException | CancellationException e) {
+                // Reemplazada por una ejecución más reciente
+            } catch (Exception e) {
+                if (token.isCurrent()) {
+                    Log.error("❌ Error en " + name + ": " + e.getMessage());
+                }
+            }
+        });
+        return token;
+    }
+
+    /**
+     * Cancela la ejecución en curso sin lanzar otra (ej. al cerrar la ventana)
+     */
+    public synchronized void cancel() {
+        generation.incrementAndGet();
+        cancelRunning();
+    }
+
+    private void cancelRunning() {
+        if (running != null && !running.isDone()) {
+            running.cancel(true);
+            Log.debug(() -> "⏹️ " + name + ": se cancela la ejecución anterior");
+        }
+        running = null;
+    }
+}
@@ -0,0 +1,247 @@
+package com.una.ale.util;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.function.Function;
+import java.util.function.ToDoubleFunction;
+
+import com.una.ale.models.AggregationBucket;
+
+/**
+ * Motor de agregación sobre filas ya cargadas en memoria.
+ * Cada dimensión se codifica una sola vez como diccionario (valor → código int) y cada métrica
+ * se copia una vez a un double[]; ambos se reutilizan en los siguientes cálculos, que recorren
+ * solo arreglos primitivos, sin objetos por fila. Si las filas ya están guardadas por columnas
+ * se pueden registrar sus columnas (putColumn/putValues) y no se lee ninguna fila.
+ * Con muchas filas el recorrido se reparte con fork/join.
+ *
+ * @param <T> Tipo de las filas
+ */
+public class LocalAggregator<T> {
+
+    /** Filas a partir de las cuales se paraleliza el recorrido */
+    static final int PARALLEL_THRESHOLD = 50_000;
+
+    /** Filas por tarea fork/join */
+    private static final int CHUNK_SIZE = 16_384;
+
+    /**
+     * Dimensión codificada: código de cada fila (-1 = sin valor) y diccionario de valores
+     */
+    public record EncodedColumn(int[] codes, List<String> dictionary) {
+
+        public int cardinality() {
+            return dictionary.size();
+        }
+    }
+
+    /**
+     * Acumuladores por código de grupo
+     */
+    private record Accumulators(double[] sums, long[] counts) {
+
+        void merge(Accumulators other) {
+            for (int i = 0; i < sums.length; i++) {
+                sums[i] += other.sums[i];
+                counts[i] += other.counts[i];
+            }
+        }
+    }
+
+    private final List<T> rows;
+    private final Map<String, EncodedColumn> columns = new ConcurrentHashMap<>();
+    private final Map<String, double[]> metrics = new ConcurrentHashMap<>();
+
+    /**
+     * @param rows Filas a agregar (se asume que no cambian mientras se use el agregador)
+     */
+    public LocalAggregator(List<T> rows) {
+        this.rows = rows;
+    }
+
+    public int size() {
+        return rows.size();
+    }
+
+    /**
+     * Codifica una dimensión (o la devuelve ya codificada si se pidió antes con el mismo nombre)
+     * @param name Nombre de la dimensión, clave de la caché de columnas
+     * @param key Valor de la dimensión para cada fila (null = la fila no entra en ningún grupo)
+     */
+    public EncodedColumn column(String name, Function<T, String> key) {
+        return columns.computeIfAbsent(name, n -> encode(key));
+    }
+
+    /**
+     * Registra una dimensión ya codificada (ej. la columna de un almacén por columnas)
+     * @param column Código de cada fila (una entrada por fila) y su diccionario
+     */
+    public void putColumn(String name, EncodedColumn column) {
+        checkLength(column.codes().length);
+        columns.put(name, column);
+    }
+
+    /**
+     * Valores de una métrica para todas las filas (o los ya copiados antes con el mismo nombre).
+     * El arreglo es compartido: no se debe modificar
+     * @param name Nombre de la métrica, clave de la caché
+     */
+    public double[] values(String name, ToDoubleFunction<T> metric) {
+        return metrics.computeIfAbsent(name, n -> copyValues(metric));
+    }
+
+    /**
+     * Registra los valores ya calculados de una métrica (una entrada por fila)
+     */
+    public void putValues(String name, double[] values) {
+        checkLength(values.length);
+        metrics.put(name, values);
+    }
+
+    /**
+     * Suma una métrica por grupo de la dimensión
+     * @param metric Valor de la métrica de cada fila (ver values)
+     * @return Grupos con el número de filas y la suma, en orden de aparición
+     */
+    public List<AggregationBucket> sum(EncodedColumn column, double[] metric) {
+        Accumulators totals = rows.size() >= PARALLEL_THRESHOLD
+            ? ForkJoinPool.commonPool().invoke(new SumTask(column, metric, 0, rows.size()))
+            : accumulate(column, metric, 0, rows.size());
+
+        List<AggregationBucket> buckets = new ArrayList<>();
+        for (int code = 0; code < column.cardinality(); code++) {
+            if (totals.counts[code] > 0) {
+                buckets.add(new AggregationBucket(column.dictionary().get(code), totals.counts[code], totals.sums[code]));
+            }
+        }
+        return buckets;
+    }
+
+    /**
+     * Cuenta los valores distintos de una dimensión dentro de cada grupo de otra (exacto)
+     * @return Grupos con el número de filas y el número de valores distintos
+     */
+    public List<AggregationBucket> countDistinct(EncodedColumn group, EncodedColumn distinct) {
+        BitSet[] seen = new BitSet[group.cardinality()];
+        long[] counts = new long[group.cardinality()];
+        int[] groupCodes = group.codes();
+        int[] distinctCodes = distinct.codes();
+
+        for (int row = 0; row < rows.size(); row++) {
+            int g = groupCodes[row];
+            int d = distinctCodes[row];
+            if (g < 0 || d < 0) continue;
+            if (seen[g] == null) seen[g] = new BitSet(distinct.cardinality());
+            seen[g].set(d);
+            counts[g]++;
+        }
+
+        List<AggregationBucket> buckets = new ArrayList<>();
+        for (int code = 0; code < seen.length; code++) {
+            if (seen[code] != null) {
+                buckets.add(new AggregationBucket(group.dictionary().get(code), counts[code], seen[code].cardinality()));
+            }
+        }
+        return buckets;
+    }
+
+    private double[] copyValues(ToDoubleFunction<T> metric) {
+        double[] values = new double[rows.size()];
+        for (int row = 0; row < values.length; row++) {
+            values[row] = metric.applyAsDouble(rows.get(row));
+        }
+        return values;
+    }
+
+    private void checkLength(int length) {
+        if (length != rows.size()) {
+            throw new IllegalArgumentException("Se esperaban " + rows.size() + " filas y hay " + length);
+        }
+    }
+
+    /**
+     * Los N grupos con mayor valor, de mayor a menor
+     */
+    public static List<AggregationBucket> top(List<AggregationBucket> buckets, int n) {
+        return buckets.stream()
+            .sorted(Comparator.comparingDouble(AggregationBucket::value).reversed())
+            .limit(n)
+            .toList();
+    }
+
+    private EncodedColumn encode(Function<T, String> key) {
+        int[] codes = new int[rows.size()];
+        Map<String, Integer> index = new HashMap<>();
+        List<String> dictionary = new ArrayList<>();
+
+        for (int row = 0; row < codes.length; row++) {
+            String value = key.apply(rows.get(row));
+            if (value == null) {
+                codes[row] = -1;
+                continue;
+            }
+            Integer code = index.get(value);
+            if (code == null) {
+                code = dictionary.size();
+                index.put(value, code);
+                dictionary.add(value);
+            }
+            codes[row] = code;
+        }
+        return new EncodedColumn(codes, List.copyOf(dictionary));
+    }
+
+    private static Accumulators accumulate(EncodedColumn column, double[] metric, int from, int to) {
+        Accumulators acc = new Accumulators(new double[column.cardinality()], new long[column.cardinality()]);
+        int[] codes = column.codes();
+        for (int row = from; row < to; row++) {
+            int code = codes[row];
+            if (code < 0) continue;
+            acc.sums[code] += metric[row];
+            acc.counts[code]++;
+        }
+        return acc;
+    }
+
+    /**
+     * Suma por grupos de un rango de filas, dividiéndolo mientras sea mayor que CHUNK_SIZE
+     */
+    private static class SumTask extends RecursiveTask<Accumulators> {
+
+        private static final long serialVersionUID = 1L;
+
+        // Las tareas nunca se serializan: solo se ejecutan en el ForkJoinPool
+        private final transient EncodedColumn column;
+        private final double[] metric;
+        private final int from;
+        private final int to;
+
+        SumTask(EncodedColumn column, double[] metric, int from, int to) {
+            this.column = column;
+            this.metric = metric;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected Accumulators compute() {
+            if (to - from <= CHUNK_SIZE) {
+                return accumulate(column, metric, from, to);
+            }
+            int middle = (from + to) >>> 1;
+            SumTask left = new SumTask(column, metric, from, middle);
+            left.fork();
+            Accumulators right = new SumTask(column, metric, middle, to).compute();
+            Accumulators result = left.join();
+            result.merge(right);
+            return result;
+        }
+    }
+}
@@ -0,0 +1,295 @@
+package com.una.ale.util;
+
+import java.io.PrintStream;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+
+/**
+ * Registro de mensajes de la aplicación con niveles, escrito en segundo plano.
+ * Quien registra solo copia el mensaje a un buffer circular de tamaño fijo y sigue; un hilo
+ * daemon lo vacía por lotes y escribe cada lote en la consola con pocas escrituras, así los
+ * hilos de trabajo no se serializan en el lock de System.out. Si el buffer se llena los mensajes
+ * se descartan (nunca se bloquea a quien registra; avisos y errores tienen espacio reservado)
+ * y se informa cuántos se perdieron.
+ * El nivel mínimo se elige con -Dapp.log.level (DEBUG, INFO, WARN, ERROR; por defecto INFO).
+ * WARN y ERROR van a System.err, el resto a System.out.
+ */
+public final class Log {
+
+    public enum Level { DEBUG, INFO, WARN, ERROR }
+
+    // Mensajes que caben en el buffer antes de empezar a descartar
+    private static final int BUFFER_CAPACITY = 8192;
+    // Espera máxima de flush() para que se escriba lo pendiente
+    private static final long FLUSH_TIMEOUT_MS = 2000;
+    // Cada cuánto revisa el hilo escritor si alguna ventana de errores terminó con omitidos
+    private static final long LIMITER_CHECK_MS = 1000;
+
+    private static final Level THRESHOLD = threshold();
+    // Limitadores con ventana de tiempo: sus omitidos se informan al cerrar la ventana
+    private static final List<Limiter> WINDOWED = new CopyOnWriteArrayList<>();
+    private static final AsyncWriter WRITER = new AsyncWriter(BUFFER_CAPACITY);
+
+    private Log() {
+    }
+
+    public static boolean isEnabled(Level level) {
+        return level.compareTo(THRESHOLD) >= 0;
+    }
+
+    public static void debug(String message) {
+        log(Level.DEBUG, message);
+    }
+
+    /**
+     * Mensaje de depuración armado solo si el nivel está activo (para rutas frecuentes)
+     */
+    public static void debug(Supplier<String> message) {
+        if (isEnabled(Level.DEBUG)) log(Level.DEBUG, message.get());
+    }
+
+    public static void info(String message) {
+        log(Level.INFO, message);
+    }
+
+    public static void warn(String message) {
+        log(Level.WARN, message);
+    }
+
+    public static void error(String message) {
+        log(Level.ERROR, message);
+    }
+
+    public static void log(Level level, String message) {
+        if (isEnabled(level)) {
+            WRITER.append(level, message);
+        }
+    }
+
+    /**
+     * Informa los errores omitidos de los limitadores con ventana y espera a que se escriban
+     * los mensajes pendientes (ej. antes de leer de la consola o al salir)
+     */
+    public static void flush() {
+        WINDOWED.forEach(Limiter::flush);
+        WRITER.flush(FLUSH_TIMEOUT_MS);
+    }
+
+    /**
+     * Errores repetidos de un mismo tipo (ej. uno por documento de un bulk): se registran los
+     * primeros y el resto solo se cuenta, se informa con Limiter#flush()
+     * @param what Descripción del tipo de error, para el resumen
+     * @param max Errores que se registran antes de empezar a omitir
+     */
+    public static Limiter limited(String what, int max) {
+        return new Limiter(what, max, Long.MAX_VALUE);
+    }
+
+    /**
+     * Igual que limited(what, max), pero el cupo se renueva en cada ventana de tiempo (para
+     * errores que llegan en llamadas separadas); lo omitido se informa al terminar la ventana
+     * (aunque no lleguen más errores) y en flush()
+     */
+    public static Limiter limited(String what, int max, Duration window) {
+        Limiter limiter = new Limiter(what, max, window.toNanos());
+        WINDOWED.add(limiter);
+        return limiter;
+    }
+
+    private static Level threshold() {
+        String value = System.getProperty("app.log.level", "INFO");
+        try {
+            return Level.valueOf(value.trim().toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            System.err.println("⚠️ Nivel de log desconocido '" + value + "', se usa INFO");
+            return Level.INFO;
+        }
+    }
+
+    /**
+     * Limita los errores repetidos de un mismo tipo
+     */
+    public static final class Limiter {
+
+        private final String what;
+        private final int max;
+        private final long windowNanos;
+        private long windowStart = System.nanoTime();
+        private int logged = 0;
+        private int suppressed = 0;
+
+        private Limiter(String what, int max, long windowNanos) {
+            this.what = what;
+            this.max = max;
+            this.windowNanos = windowNanos;
+        }
+
+        /**
+         * Registra el error si queda cupo; si no, solo lo cuenta
+         */
+        public synchronized void error(String message) {
+            closeExpiredWindow();
+            if (logged < max) {
+                logged++;
+                Log.error(message);
+            } else {
+                suppressed++;
+            }
+        }
+
+        /**
+         * Si la ventana terminó, informa lo omitido y renueva el cupo
+         */
+        synchronized void closeExpiredWindow() {
+            if (windowNanos != Long.MAX_VALUE && System.nanoTime() - windowStart >= windowNanos) {
+                flush();
+                windowStart = System.nanoTime();
+                logged = 0;
+            }
+        }
+
+        /**
+         * Informa cuántos errores se omitieron desde el último resumen
+         */
+        public synchronized void flush() {
+            if (suppressed > 0) {
+                Log.warn("⚠️ " + suppressed + " errores similares omitidos (" + what + ")");
+                suppressed = 0;
+            }
+        }
+    }
+
+    /**
+     * Buffer circular de mensajes y el hilo que los escribe por lotes
+     */
+    private static final class AsyncWriter implements Runnable {
+
+        private final Level[] levels;
+        private final String[] messages;
+        private final ReentrantLock lock = new ReentrantLock();
+        private final Condition notEmpty = lock.newCondition();
+        private final Condition written = lock.newCondition();
+        private long head = 0;      // Mensajes agregados
+        private long tail = 0;      // Mensajes tomados por el hilo escritor
+        private long done = 0;      // Mensajes ya escritos
+        private long dropped = 0;   // Descartados desde el último aviso
+
+        AsyncWriter(int capacity) {
+            this.levels = new Level[capacity];
+            this.messages = new String[capacity];
+            Thread thread = new Thread(this, "app-log");
+            thread.setDaemon(true);
+            thread.start();
+            Runtime.getRuntime().addShutdownHook(new Thread(Log::flush, "app-log-flush"));
+        }
+
+        void append(Level level, String message) {
+            lock.lock();
+            try {
+                // La última parte del buffer queda reservada para avisos y errores
+                long limit = level.compareTo(Level.WARN) >= 0 ? messages.length : messages.length - messages.length / 8;
+                if (head - tail >= limit) {
+                    dropped++;
+                    return;
+                }
+                int slot = (int) (head % messages.length);
+                levels[slot] = level;
+                messages[slot] = message;
+                if (head++ == tail) {
+                    notEmpty.signal();
+                }
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        void flush(long timeoutMs) {
+            long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutMs);
+            lock.lock();
+            try {
+                long target = head;
+                while (done < target) {
+                    long remaining = deadline - System.nanoTime();
+                    if (remaining <= 0) return;
+                    written.awaitNanos(remaining);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        @Override
+        public void run() {
+            List<Chunk> chunks = new ArrayList<>();
+            while (true) {
+                // Fuera del lock: informar lo omitido agrega mensajes al buffer
+                WINDOWED.forEach(Limiter::closeExpiredWindow);
+                long lost;
+                lock.lock();
+                try {
+                    if (head == tail) {
+                        try {
+                            notEmpty.await(LIMITER_CHECK_MS, TimeUnit.MILLISECONDS);
+                        } catch (InterruptedException e) {
+                            // El hilo escritor no se interrumpe; se sigue esperando
+                        }
+                        if (head == tail) continue;
+                    }
+                    // Copiar el lote y liberar sus espacios antes de escribir en la consola
+                    StringBuilder text = new StringBuilder();
+                    PrintStream stream = null;
+                    for (long i = tail; i < head; i++) {
+                        int slot = (int) (i % messages.length);
+                        PrintStream target = levels[slot].compareTo(Level.WARN) >= 0 ? System.err : System.out;
+                        if (target != stream && text.length() > 0) {
+                            chunks.add(new Chunk(stream, text.toString()));
+                            text.setLength(0);
+                        }
+                        stream = target;
+                        text.append(messages[slot]).append(System.lineSeparator());
+                        messages[slot] = null;
+                    }
+                    chunks.add(new Chunk(stream, text.toString()));
+                    tail = head;
+                    lost = dropped;
+                    dropped = 0;
+                } finally {
+                    lock.unlock();
+                }
+
+                if (lost > 0) {
+                    chunks.add(new Chunk(System.err, "⚠️ " + lost + " mensajes de log descartados (buffer lleno)" 
+                        + System.lineSeparator()));
+                }
+                for (Chunk chunk : chunks) {
+                    chunk.stream().print(chunk.text());
+                    chunk.stream().flush();
+                }
+                chunks.clear();
+
+                lock.lock();
+                try {
+                    done = tail;
+                    written.signalAll();
+                } finally {
+                    lock.unlock();
+                }
+            }
+        }
+
+        /**
+         * Texto consecutivo de un lote que va al mismo flujo
+         */
+        private record Chunk(PrintStream stream, String text) {
+        }
+    }
+}
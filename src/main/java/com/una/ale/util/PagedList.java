@@ -0,0 +1,251 @@
+package com.una.ale.util;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+import javafx.application.Platform;
+import javafx.collections.ObservableListBase;
+
+/**
+ * Lista observable de solo lectura que se llena por páginas bajo demanda.
+ * Pedir una fila de una página no cargada devuelve un marcador y carga la página en segundo
+ * plano; al llegar, las filas reemplazan al marcador y la tabla se actualiza sola.
+ * Solo se mantienen en memoria las últimas páginas usadas (LRU); las lejanas se descartan
+ * y se vuelven a pedir si la tabla regresa a ellas.
+ * Las filas nuevas que llegan después de abrir la lista se agregan al inicio ({@link #prepend}),
+ * antes de las páginas.
+ * Si una página falla no se vuelve a pedir enseguida (la tabla llama a get() en cada pulso):
+ * se espera un tiempo que se duplica con cada fallo seguido, hasta un máximo.
+ * Debe usarse desde el hilo de JavaFX.
+ *
+ * @param <T> Tipo de las filas
+ */
+public class PagedList<T> extends ObservableListBase<T> {
+
+    /**
+     * Fuente de páginas (se llama fuera del hilo de JavaFX)
+     */
+    @FunctionalInterface
+    public interface PageSource<T> {
+        List<T> fetch(int pageIndex) throws IOException;
+    }
+
+    static final int DEFAULT_MAX_PAGES = 20;
+
+    // Filas antes del final de una página a partir de las cuales se pide la siguiente
+    private static final int PREFETCH_ROWS = 20;
+    // Espera antes de volver a pedir una página que falló; se duplica con cada fallo seguido
+    private static final long RETRY_INITIAL_MS = 1000;
+    private static final long RETRY_MAX_MS = 60_000;
+
+    private final int size; // Filas de las páginas (sin las agregadas al inicio)
+    private final int pageSize;
+    private final T placeholder;
+    private final PageSource<T> source;
+    private final Map<Integer, List<T>> pages;
+    private final Set<Integer> loading = new HashSet<>();
+    private final Map<Integer, Failure> failed = new HashMap<>(); // Páginas que fallaron, con su próximo intento
+    private List<T> head = List.of(); // Filas agregadas al inicio, de la más nueva a la más vieja
+    private Consumer<Exception> onError = e -> Log.error("❌ Error cargando página: " + e.getMessage());
+    private Consumer<Runnable> fxExecutor = Platform::runLater;
+    private boolean closed = false;
+
+    /**
+     * @param size Número total de filas
+     * @param pageSize Filas por página
+     * @param placeholder Fila que se muestra mientras su página se carga
+     * @param source Fuente de páginas
+     */
+    public PagedList(long size, int pageSize, T placeholder, PageSource<T> source) {
+        this(size, pageSize, DEFAULT_MAX_PAGES, placeholder, source);
+    }
+
+    /**
+     * @param maxPages Páginas que se conservan en memoria
+     */
+    public PagedList(long size, int pageSize, int maxPages, T placeholder, PageSource<T> source) {
+        this.size = (int) Math.min(size, Integer.MAX_VALUE);
+        this.pageSize = pageSize;
+        this.placeholder = placeholder;
+        this.source = source;
+        this.pages = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Integer, List<T>> eldest) {
+                return size() > maxPages;
+            }
+        };
+    }
+
+    /**
+     * Registra una página ya obtenida (ej. la primera, cargada junto con el total)
+     */
+    public void putPage(int pageIndex, List<T> rows) {
+        pages.put(pageIndex, List.copyOf(rows));
+    }
+
+    /**
+     * Acción ante un error al cargar una página
+     */
+    public void setOnError(Consumer<Exception> onError) {
+        this.onError = onError;
+    }
+
+    /**
+     * Cómo se aplican en el hilo de JavaFX las páginas que llegan (por defecto Platform.runLater),
+     * ej. {@link UiUpdateScheduler#post(Runnable)} para agruparlas con el resto de la interfaz
+     */
+    public void setFxExecutor(Consumer<Runnable> fxExecutor) {
+        this.fxExecutor = fxExecutor;
+    }
+
+    @Override
+    public T get(int index) {
+        if (index < 0 || index >= size()) {
+            throw new IndexOutOfBoundsException(index);
+        }
+        if (index < head.size()) {
+            return head.get(index);
+        }
+        index -= head.size();
+        int pageIndex = index / pageSize;
+        List<T> page = pages.get(pageIndex);
+        if (page == null) {
+            requestPage(pageIndex);
+            return placeholder;
+        }
+        int offset = index % pageSize;
+        if (offset >= pageSize - PREFETCH_ROWS && (pageIndex + 1) * (long) pageSize < size 
+                && !pages.containsKey(pageIndex + 1)) {
+            requestPage(pageIndex + 1); // Adelantar la siguiente página al acercarse al final
+        }
+        return offset < page.size() ? page.get(offset) : placeholder;
+    }
+
+    @Override
+    public int size() {
+        return head.size() + size;
+    }
+
+    /**
+     * Agrega filas al inicio de la lista (ej. documentos indexados después de abrirla)
+     * @param rows Filas nuevas, en el orden en que deben mostrarse
+     */
+    public void prepend(List<T> rows) {
+        if (closed || rows.isEmpty()) return;
+
+        List<T> merged = new ArrayList<>(rows.size() + head.size());
+        merged.addAll(rows);
+        merged.addAll(head);
+        head = List.copyOf(merged);
+
+        beginChange();
+        nextAdd(0, rows.size());
+        endChange();
+    }
+
+    /**
+     * Indica si la fila es el marcador de una página aún no cargada
+     */
+    public boolean isPlaceholder(T row) {
+        return row == placeholder;
+    }
+
+    /**
+     * Filas actualmente en memoria, en orden de página
+     */
+    public List<T> loadedRows() {
+        List<T> rows = new ArrayList<>(head);
+        pages.keySet().stream().sorted().forEach(pageIndex -> rows.addAll(pages.get(pageIndex)));
+        return rows;
+    }
+
+    public int loadedPageCount() {
+        return pages.size();
+    }
+
+    /**
+     * Deja de cargar páginas y libera las que están en memoria
+     */
+    public void close() {
+        closed = true;
+        head = List.of();
+        pages.clear();
+        loading.clear();
+        failed.clear();
+    }
+
+    private void requestPage(int pageIndex) {
+        if (closed || loading.contains(pageIndex)) return;
+        Failure failure = failed.get(pageIndex);
+        if (failure != null && System.nanoTime() - failure.retryAt() < 0) return; // Aún en espera
+        Executor io;
+        try {
+            io = IoExecutor.get();
+        } catch (RejectedExecutionException e) {
+            close(); // La aplicación se está cerrando: no se piden más páginas
+            return;
+        }
+        loading.add(pageIndex);
+
+        CompletableFuture.supplyAsync(() -> {
+            try {
+                return source.fetch(pageIndex);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }, io).whenComplete((rows, error) -> fxExecutor.accept(() -> {
+            loading.remove(pageIndex);
+            if (closed) return;
+            if (error != null) {
+                failed.put(pageIndex, Failure.after(failed.get(pageIndex)));
+                Throwable cause = error.getCause() != null ? error.getCause() : error;
+                onError.accept(cause instanceof Exception ex ? ex : new RuntimeException(cause));
+                return;
+            }
+            failed.remove(pageIndex);
+            pages.put(pageIndex, List.copyOf(rows));
+            firePageLoaded(pageIndex, rows.size());
+        }));
+    }
+
+    /**
+     * Notifica que las filas de la página reemplazaron a sus marcadores
+     */
+    private void firePageLoaded(int pageIndex, int rowCount) {
+        int from = pageIndex * pageSize;
+        int to = Math.min(size, from + rowCount);
+        if (from >= to) return;
+        from += head.size();
+        to += head.size();
+
+        beginChange();
+        for (int i = from; i < to; i++) {
+            nextSet(i, placeholder);
+        }
+        endChange();
+    }
+
+    /**
+     * Fallos seguidos de una página y cuándo se puede volver a pedir (System.nanoTime)
+     */
+    private record Failure(int attempts, long retryAt) {
+
+        static Failure after(Failure previous) {
+            int attempts = previous != null ? previous.attempts() + 1 : 1;
+            long delayMs = Math.min(RETRY_MAX_MS, RETRY_INITIAL_MS << Math.min(attempts - 1, 16));
+            return new Failure(attempts, System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(delayMs));
+        }
+    }
+}
@@ -1,5 +1,6 @@
 package com.una.ale.util;
 
+import com.una.ale.models.IndexOverview;
 import com.una.ale.services.ElasticsearchService;
 
 /**
@@ -25,18 +26,19 @@ public class QuickViewElasticsearch {
             
             // Listar todos los índices
             System.out.println("\n📋 === ÍNDICES DISPONIBLES ===");
-            var indices = esService.listAllIndices();
+            var overview = esService.getIndicesOverview();
+            var indices = overview.stream().map(IndexOverview::name).toList();
             
             if (indices.isEmpty()) {
                 System.out.println("❌ No se encontraron índices");
                 return;
             }
             
-            // Mostrar información de cada índice
-            for (String index : indices) {
-                if (!index.startsWith(".")) { // Ignorar índices del sistema
-                    long count = esService.countDocuments(index);
-                    System.out.printf("📊 %s: %d documentos%n", index, count);
+            // Mostrar información de cada índice (una sola consulta para todos)
+            for (IndexOverview index : overview) {
+                if (!index.isSystemIndex()) { // Ignorar índices del sistema
+                    System.out.printf("📊 %s: %d documentos (%s, salud: %s)%n", 
+                        index.name(), index.docsCount(), index.storeSize(), index.health());
                 }
             }
             
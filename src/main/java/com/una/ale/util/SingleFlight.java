@@ -0,0 +1,83 @@
+package com.una.ale.util;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+
+/**
+ * Agrupa llamadas concurrentes idénticas: mientras una consulta con la misma clave
+ * está en curso, los demás llamadores esperan su resultado en lugar de repetirla.
+ * Al terminar, la clave se libera y la siguiente llamada vuelve a consultar.
+ * Si la consulta compartida se canceló (se interrumpió a quien la hizo), los que esperaban
+ * no heredan la cancelación: vuelven a intentarlo.
+ *
+ * @param <K> Tipo de la clave que identifica la consulta
+ * @param <V> Tipo del resultado compartido
+ */
+public class SingleFlight<K, V> {
+
+    /**
+     * Operación de lectura que puede fallar con IOException
+     */
+    @FunctionalInterface
+    public interface Loader<V> {
+        V load() throws IOException;
+    }
+
+    private final ConcurrentHashMap<K, CompletableFuture<V>> inFlight = new ConcurrentHashMap<>();
+
+    /**
+     * Ejecuta la consulta o se une a la que ya está en curso con la misma clave
+     * @param key Clave de la consulta
+     * @param loader Consulta a ejecutar si no hay una en curso
+     * @return Resultado (compartido entre todos los llamadores concurrentes)
+     * @throws IOException si la consulta falla
+     */
+    public V execute(K key, Loader<V> loader) throws IOException {
+        CompletableFuture<V> mine = new CompletableFuture<>();
+        CompletableFuture<V> existing;
+        while ((existing = inFlight.putIfAbsent(key, mine)) != null) {
+            try {
+                return await(existing);
+            } catch (InterruptedIOException e) {
+                if (Thread.currentThread().isInterrupted()) throw e;
+                // Se canceló la consulta de otro llamador: se vuelve a intentar
+            }
+        }
+
+        try {
+            V value = loader.load();
+            mine.complete(value);
+            return value;
+        } catch (IOException | RuntimeException | Error e) {
+            mine.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(key, mine);
+        }
+    }
+
+    /**
+     * Número de consultas actualmente en curso
+     */
+    public int inFlightCount() {
+        return inFlight.size();
+    }
+
+    private V await(CompletableFuture<V> future) throws IOException {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Consulta cancelada");
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof IOException io) throw io;
+            if (cause instanceof RuntimeException re) throw re;
+            if (cause instanceof Error err) throw err;
+            throw new IOException(cause);
+        }
+    }
+}
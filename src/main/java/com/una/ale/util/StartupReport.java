@@ -0,0 +1,58 @@
+package com.una.ale.util;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Tiempos de las fases del arranque, medidos desde el inicio del proceso.
+ * Cada fase se marca una vez al terminar; cuando se marcaron todas las esperadas se
+ * imprime el reporte (ej. para medir el tiempo hasta ver los primeros datos).
+ */
+public class StartupReport {
+
+    private final String name;
+    private final Instant origin;
+    private final Set<String> pending;
+    private final Map<String, Long> phases = new LinkedHashMap<>();
+    private boolean logged = false;
+
+    /**
+     * @param name Nombre del reporte
+     * @param expected Fases que deben marcarse antes de imprimirlo
+     */
+    public StartupReport(String name, String... expected) {
+        this.name = name;
+        this.origin = ProcessHandle.current().info().startInstant().orElseGet(Instant::now);
+        this.pending = new LinkedHashSet<>(List.of(expected));
+    }
+
+    /**
+     * Marca el fin de una fase (las marcas repetidas se ignoran)
+     * @param phase Nombre de la fase
+     */
+    public synchronized void mark(String phase) {
+        phases.putIfAbsent(phase, Duration.between(origin, Instant.now()).toMillis());
+        pending.remove(phase);
+        if (pending.isEmpty() && !logged) {
+            logged = true;
+            Log.info(summary());
+        }
+    }
+
+    /**
+     * Texto del reporte con las fases marcadas hasta ahora, en orden
+     */
+    public synchronized String summary() {
+        StringBuilder text = new StringBuilder("⏱️ " + name + ":");
+        phases.forEach((phase, millis) -> text.append(' ').append(phase).append(' ').append(millis).append(" ms ·"));
+        if (!phases.isEmpty()) {
+            text.setLength(text.length() - 2);
+        }
+        return text.toString();
+    }
+}
@@ -0,0 +1,61 @@
+package com.una.ale.util;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import javafx.application.Platform;
+
+/**
+ * Agrupa las actualizaciones de la interfaz que llegan desde hilos de fondo.
+ * En lugar de un Platform.runLater por cada cambio, las actualizaciones pendientes se
+ * acumulan y se aplican juntas en un único evento del hilo de JavaFX: nunca hay más de
+ * uno en cola, así una ráfaga de trabajo en segundo plano no satura la cola de eventos.
+ * Las actualizaciones con clave (ej. el texto de estado) se reemplazan entre sí: solo
+ * se aplica la última, en la posición en que se pidió la primera.
+ */
+public class UiUpdateScheduler {
+
+    private final Map<Object, Runnable> pending = new LinkedHashMap<>();
+    private boolean scheduled = false;
+
+    /**
+     * Programa una actualización; todas las programadas se aplican en orden
+     */
+    public void post(Runnable update) {
+        post(new Object(), update);
+    }
+
+    /**
+     * Programa una actualización que reemplaza a la pendiente con la misma clave
+     * @param key Identifica lo que se actualiza (última escritura gana)
+     */
+    public void post(Object key, Runnable update) {
+        synchronized (pending) {
+            pending.put(key, update);
+            if (scheduled) return;
+            scheduled = true;
+        }
+        Platform.runLater(this::flush);
+    }
+
+    /**
+     * Aplica las actualizaciones pendientes (en el hilo de JavaFX)
+     */
+    private void flush() {
+        List<Runnable> updates;
+        synchronized (pending) {
+            updates = new ArrayList<>(pending.values());
+            pending.clear();
+            scheduled = false;
+        }
+        for (Runnable update : updates) {
+            try {
+                update.run();
+            } catch (RuntimeException e) {
+                Log.error("❌ Error actualizando la interfaz: " + e.getMessage());
+            }
+        }
+    }
+}